@@ -0,0 +1,359 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import com.hp.autonomy.frontend.reports.powerpoint.dto.DategraphData;
+import com.hp.autonomy.frontend.reports.powerpoint.dto.ListData;
+import com.hp.autonomy.frontend.reports.powerpoint.dto.MapData;
+import com.hp.autonomy.frontend.reports.powerpoint.dto.ReportData;
+import com.hp.autonomy.frontend.reports.powerpoint.dto.SunburstData;
+import com.hp.autonomy.frontend.reports.powerpoint.dto.TableData;
+import com.hp.autonomy.frontend.reports.powerpoint.dto.TopicMapData;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+
+/**
+ * An asynchronous wrapper for a PowerPointService, which renders presentations on its own executor so e.g. servlet
+ *   container threads aren't tied up while they're built.
+ *
+ * Each method returns a CompletableFuture which completes with the result of the corresponding PowerPointService
+ *   method, or exceptionally with the exception it threw. If the executor's queue is full the future fails straight
+ *   away with a {@link RejectedExecutionException}, and if a timeout is configured and the rendering takes longer than
+ *   that from when it was submitted, the future fails with a {@link java.util.concurrent.TimeoutException} and the
+ *   rendering is cancelled. Cancelling a returned future also cancels its rendering.
+ *
+ * Use {@link #fixedPool} for a bounded pool of platform threads, {@link #virtualThreads} for virtual threads on Java 21
+ *   or later, or supply your own executor.
+ *
+ * This doesn't keep image downloads off the rendering threads. By default images are fetched one at a time on the
+ *   rendering thread as they're drawn. With the imagePrefetchThreads template setting they're fetched on virtual
+ *   threads where those are supported, but the rendering thread still blocks until they arrive. So with
+ *   {@link #fixedPool} or a platform-thread executor, a platform thread is held for as long as images take to download;
+ *   only {@link #virtualThreads} avoids that.
+ */
+public class AsyncPowerPointService implements AutoCloseable {
+
+    /** The service which actually renders presentations. */
+    private final PowerPointService delegate;
+
+    /** Where presentations are rendered. */
+    private final ExecutorService executor;
+
+    /** How long each rendering may take in milliseconds, or 0 if unlimited. */
+    private final long timeoutMillis;
+
+    /** Whether the executor should be shut down when we're closed. */
+    private final boolean ownsExecutor;
+
+    /**
+     * Constructor for an AsyncPowerPointService which uses an existing executor; it's left running when this service is
+     *   closed. Use an executor with a bounded queue and a rejection policy which throws, e.g.
+     *   {@link ThreadPoolExecutor.AbortPolicy}, to limit the number of queued renderings.
+     * @param delegate the service which actually renders presentations.
+     * @param executor where to render presentations.
+     * @param timeout how long each rendering may take from when it's submitted, or null if unlimited.
+     */
+    public AsyncPowerPointService(final PowerPointService delegate, final ExecutorService executor, final Duration timeout) {
+        this(delegate, executor, timeout, false);
+    }
+
+    private AsyncPowerPointService(final PowerPointService delegate, final ExecutorService executor, final Duration timeout, final boolean ownsExecutor) {
+        if(timeout != null && (timeout.isNegative() || timeout.isZero())) {
+            throw new IllegalArgumentException("timeout must be positive");
+        }
+
+        this.delegate = delegate;
+        this.executor = executor;
+        this.timeoutMillis = timeout == null ? 0 : timeout.toMillis();
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    /**
+     * Creates an AsyncPowerPointService which renders on a fixed pool of platform threads.
+     * @param delegate the service which actually renders presentations.
+     * @param threads how many presentations to render at once; typically the number of cores.
+     * @param queueCapacity how many more presentations may wait to be rendered before new requests are rejected.
+     * @param timeout how long each rendering may take from when it's submitted, or null if unlimited.
+     * @return the service, which should be closed when it's no longer needed.
+     */
+    public static AsyncPowerPointService fixedPool(final PowerPointService delegate, final int threads, final int queueCapacity, final Duration timeout) {
+        return new AsyncPowerPointService(delegate, createExecutor(threads, queueCapacity, ThreadFactories.daemon("pptx-render-")), timeout, true);
+    }
+
+    /**
+     * Creates an AsyncPowerPointService which renders on virtual threads, with at most maxConcurrent at once since
+     *   rendering is mostly CPU-bound.
+     * @param delegate the service which actually renders presentations.
+     * @param maxConcurrent how many presentations to render at once.
+     * @param queueCapacity how many more presentations may wait to be rendered before new requests are rejected.
+     * @param timeout how long each rendering may take from when it's submitted, or null if unlimited.
+     * @return the service, which should be closed when it's no longer needed.
+     * @throws UnsupportedOperationException if the JVM doesn't support virtual threads.
+     */
+    public static AsyncPowerPointService virtualThreads(final PowerPointService delegate, final int maxConcurrent, final int queueCapacity, final Duration timeout) {
+        final ThreadPoolExecutor executor = createExecutor(maxConcurrent, queueCapacity, ThreadFactories.virtual("pptx-render-"));
+        // Virtual threads are cheap to create, so don't keep idle ones around
+        executor.allowCoreThreadTimeOut(true);
+        return new AsyncPowerPointService(delegate, executor, timeout, true);
+    }
+
+    private static ThreadPoolExecutor createExecutor(final int threads, final int queueCapacity, final ThreadFactory threadFactory) {
+        if(threads < 1) {
+            throw new IllegalArgumentException("There must be at least one thread");
+        }
+
+        return new ThreadPoolExecutor(
+                threads, threads, 1, TimeUnit.MINUTES,
+                queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity) : new SynchronousQueue<>(),
+                threadFactory,
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    /**
+     * Asynchronous version of {@link PowerPointService#validateTemplate()}.
+     * @return a future which completes when the template has been validated.
+     */
+    public CompletableFuture<Void> validateTemplate() {
+        return submit(() -> {
+            delegate.validateTemplate();
+            return null;
+        });
+    }
+
+    /**
+     * Asynchronous version of {@link PowerPointService#topicmap(TopicMapData)}.
+     * @param topicmap the topic map data.
+     * @return a future for the presentation.
+     */
+    public CompletableFuture<XMLSlideShow> topicmap(final TopicMapData topicmap) {
+        return submit(() -> delegate.topicmap(topicmap));
+    }
+
+    /**
+     * Asynchronous version of {@link PowerPointService#sunburst(SunburstData)}.
+     * @param sunburst the sunburst data.
+     * @return a future for the presentation.
+     */
+    public CompletableFuture<XMLSlideShow> sunburst(final SunburstData sunburst) {
+        return submit(() -> delegate.sunburst(sunburst));
+    }
+
+    /**
+     * Asynchronous version of {@link PowerPointService#table(TableData, String)}.
+     * @param tableData the table data.
+     * @param title the table title.
+     * @return a future for the presentation.
+     */
+    public CompletableFuture<XMLSlideShow> table(final TableData tableData, final String title) {
+        return submit(() -> delegate.table(tableData, title));
+    }
+
+    /**
+     * Asynchronous version of {@link PowerPointService#map(MapData, String)}.
+     * @param map the map data.
+     * @param title the map title.
+     * @return a future for the presentation.
+     */
+    public CompletableFuture<XMLSlideShow> map(final MapData map, final String title) {
+        return submit(() -> delegate.map(map, title));
+    }
+
+    /**
+     * Asynchronous version of {@link PowerPointService#list(ListData, String, String)}.
+     * @param documentList the list of documents.
+     * @param results the results description.
+     * @param sortBy the sort description.
+     * @return a future for the presentation.
+     */
+    public CompletableFuture<XMLSlideShow> list(final ListData documentList, final String results, final String sortBy) {
+        return submit(() -> delegate.list(documentList, results, sortBy));
+    }
+
+    /**
+     * Asynchronous version of {@link PowerPointService#graph(DategraphData)}.
+     * @param data the date graph data.
+     * @return a future for the presentation.
+     */
+    public CompletableFuture<XMLSlideShow> graph(final DategraphData data) {
+        return submit(() -> delegate.graph(data));
+    }
+
+    /**
+     * Asynchronous version of {@link PowerPointService#report(ReportData, boolean)}.
+     * @param report the report data.
+     * @param slidePerVisualizer whether to render each visualizer on its own slide.
+     * @return a future for the presentation.
+     */
+    public CompletableFuture<XMLSlideShow> report(final ReportData report, final boolean slidePerVisualizer) {
+        return submit(() -> delegate.report(report, slidePerVisualizer));
+    }
+
+    /**
+     * Asynchronous version of {@link PowerPointService#topicmap(TopicMapData, OutputStream)}.
+     * @param topicmap the topic map data.
+     * @param outputStream where to write the PowerPoint file; it won't be closed.
+     * @return a future which completes when the file has been written.
+     */
+    public CompletableFuture<Void> topicmap(final TopicMapData topicmap, final OutputStream outputStream) {
+        return submit(() -> {
+            delegate.topicmap(topicmap, outputStream);
+            return null;
+        });
+    }
+
+    /**
+     * Asynchronous version of {@link PowerPointService#sunburst(SunburstData, OutputStream)}.
+     * @param sunburst the sunburst data.
+     * @param outputStream where to write the PowerPoint file; it won't be closed.
+     * @return a future which completes when the file has been written.
+     */
+    public CompletableFuture<Void> sunburst(final SunburstData sunburst, final OutputStream outputStream) {
+        return submit(() -> {
+            delegate.sunburst(sunburst, outputStream);
+            return null;
+        });
+    }
+
+    /**
+     * Asynchronous version of {@link PowerPointService#table(TableData, String, OutputStream)}.
+     * @param tableData the table data.
+     * @param title the table title.
+     * @param outputStream where to write the PowerPoint file; it won't be closed.
+     * @return a future which completes when the file has been written.
+     */
+    public CompletableFuture<Void> table(final TableData tableData, final String title, final OutputStream outputStream) {
+        return submit(() -> {
+            delegate.table(tableData, title, outputStream);
+            return null;
+        });
+    }
+
+    /**
+     * Asynchronous version of {@link PowerPointService#map(MapData, String, OutputStream)}.
+     * @param map the map data.
+     * @param title the map title.
+     * @param outputStream where to write the PowerPoint file; it won't be closed.
+     * @return a future which completes when the file has been written.
+     */
+    public CompletableFuture<Void> map(final MapData map, final String title, final OutputStream outputStream) {
+        return submit(() -> {
+            delegate.map(map, title, outputStream);
+            return null;
+        });
+    }
+
+    /**
+     * Asynchronous version of {@link PowerPointService#list(ListData, String, String, OutputStream)}.
+     * @param documentList the list of documents.
+     * @param results the results description.
+     * @param sortBy the sort description.
+     * @param outputStream where to write the PowerPoint file; it won't be closed.
+     * @return a future which completes when the file has been written.
+     */
+    public CompletableFuture<Void> list(final ListData documentList, final String results, final String sortBy, final OutputStream outputStream) {
+        return submit(() -> {
+            delegate.list(documentList, results, sortBy, outputStream);
+            return null;
+        });
+    }
+
+    /**
+     * Asynchronous version of {@link PowerPointService#graph(DategraphData, OutputStream)}.
+     * @param data the date graph data.
+     * @param outputStream where to write the PowerPoint file; it won't be closed.
+     * @return a future which completes when the file has been written.
+     */
+    public CompletableFuture<Void> graph(final DategraphData data, final OutputStream outputStream) {
+        return submit(() -> {
+            delegate.graph(data, outputStream);
+            return null;
+        });
+    }
+
+    /**
+     * Asynchronous version of {@link PowerPointService#report(ReportData, boolean, OutputStream)}.
+     * @param report the report data.
+     * @param slidePerVisualizer whether to render each visualizer on its own slide.
+     * @param outputStream where to write the PowerPoint file; it won't be closed.
+     * @return a future which completes when the file has been written.
+     */
+    public CompletableFuture<Void> report(final ReportData report, final boolean slidePerVisualizer, final OutputStream outputStream) {
+        return submit(() -> {
+            delegate.report(report, slidePerVisualizer, outputStream);
+            return null;
+        });
+    }
+
+    /**
+     * Shuts down the executor if it was created by this class, cancelling any renderings in progress; an executor
+     *   passed to the constructor is left running.
+     */
+    @Override
+    public void close() {
+        if(ownsExecutor) {
+            executor.shutdownNow();
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(final Task<T> task) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final Future<?> running;
+
+        try {
+            running = executor.submit(() -> {
+                try {
+                    result.complete(task.call());
+                }
+                catch(Exception | Error e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        }
+        catch(RejectedExecutionException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+
+        if(timeoutMillis > 0) {
+            result.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+
+        // Stop work nobody is waiting for any more, e.g. after a timeout or cancellation
+        result.whenComplete((value, error) -> {
+            if(error != null) {
+                running.cancel(true);
+            }
+        });
+
+        return result;
+    }
+
+    /** A call to the underlying service. */
+    private interface Task<T> {
+        T call() throws TemplateLoadException, IOException;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import java.util.Arrays;
+
+/**
+ * Internal implementation class to decode base64 straight from part of a string, e.g. the data in a data URI, without
+ *   copying it out first; the output array is sized exactly, so nothing else is allocated.
+ * It's as lenient as commons-codec's Base64.decodeBase64(), which it replaces: it accepts both the standard and
+ *   URL-safe alphabets, ignores any other characters such as whitespace, stops at the first padding character and
+ *   discards any incomplete trailing bits.
+ */
+final class Base64Decoder {
+
+    /** The 6-bit value of each ASCII character, or -1 if it isn't a base64 character. */
+    private static final byte[] DECODE_TABLE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE_TABLE, (byte) -1);
+
+        final String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+        for(int ii = 0; ii < alphabet.length(); ++ii) {
+            DECODE_TABLE[alphabet.charAt(ii)] = (byte) ii;
+        }
+
+        DECODE_TABLE['+'] = DECODE_TABLE['-'] = 62;
+        DECODE_TABLE['/'] = DECODE_TABLE['_'] = 63;
+    }
+
+    private static final char PAD = '=';
+
+    private Base64Decoder() {}
+
+    /**
+     * Decodes base64 data.
+     * @param chars the characters containing the base64 data.
+     * @param start the index of the first character to decode.
+     * @param end the index after the last character to decode.
+     * @return the decoded data.
+     */
+    static byte[] decode(final CharSequence chars, final int start, final int end) {
+        // Count the characters we'll decode first, so we can allocate the output at its final size
+        int dataEnd = end;
+        long count = 0;
+
+        for(int ii = start; ii < end; ++ii) {
+            final char c = chars.charAt(ii);
+
+            if(c == PAD) {
+                dataEnd = ii;
+                break;
+            }
+
+            if(c < DECODE_TABLE.length && DECODE_TABLE[c] >= 0) {
+                ++count;
+            }
+        }
+
+        final byte[] output = new byte[(int) (count * 6 / 8)];
+        int pos = 0, buffer = 0, bits = 0;
+
+        for(int ii = start; ii < dataEnd; ++ii) {
+            final char c = chars.charAt(ii);
+
+            if(c < DECODE_TABLE.length) {
+                final int value = DECODE_TABLE[c];
+
+                if(value >= 0) {
+                    buffer = (buffer << 6) | value;
+                    bits += 6;
+
+                    if(bits >= 8) {
+                        bits -= 8;
+                        output[pos++] = (byte) (buffer >> bits);
+                    }
+                }
+            }
+        }
+
+        return output;
+    }
+}
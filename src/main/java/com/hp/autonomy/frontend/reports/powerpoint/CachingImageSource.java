@@ -0,0 +1,253 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+
+/**
+ * An ImageSource decorator which keeps recently-used images in memory, so e.g. map backgrounds and repeated list
+ *   thumbnails only have to be fetched or decoded once per process instead of once per presentation.
+ *
+ * Entries are keyed by a SHA-256 digest of the image identifier, so large data URIs aren't retained as keys, and the
+ *   image data itself is stored by a digest of its content, so different identifiers which resolve to the same image
+ *   share a single copy.
+ * The cache is bounded by the total size of the distinct images it holds; the least-recently-used entries are evicted
+ *   once that's exceeded. Images larger than the whole budget are returned but not cached.
+ * Entries can optionally expire a fixed time after they were fetched, e.g. if the images behind web URLs may change.
+ *
+ * The returned ImageData objects are shared between callers and must not be modified.
+ */
+public class CachingImageSource implements ImageSource {
+
+    /** The source of the actual image data. */
+    private final ImageSource imageSource;
+
+    /** The maximum total size in bytes of the distinct images held. */
+    private final long maxBytes;
+
+    /** How long entries live after they were fetched, in nanoseconds, or 0 if they never expire. */
+    private final long ttlNanos;
+
+    /** Entries keyed by image identifier digest, in access order. Guarded by this. */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Image data keyed by content digest. Guarded by this. */
+    private final Map<String, Blob> blobs = new HashMap<>();
+
+    /** Total size in bytes of the distinct images held. Guarded by this. */
+    private long currentBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Constructor for a CachingImageSource whose entries never expire.
+     * @param imageSource the source of the actual image data.
+     * @param maxBytes the maximum total size in bytes of the images to keep.
+     */
+    public CachingImageSource(final ImageSource imageSource, final long maxBytes) {
+        this(imageSource, maxBytes, null);
+    }
+
+    /**
+     * Constructor for a CachingImageSource.
+     * @param imageSource the source of the actual image data.
+     * @param maxBytes the maximum total size in bytes of the images to keep.
+     * @param ttl how long to keep each entry after it was fetched, or null if entries should never expire.
+     */
+    public CachingImageSource(final ImageSource imageSource, final long maxBytes, final Duration ttl) {
+        if(maxBytes < 0) {
+            throw new IllegalArgumentException("maxBytes must not be negative");
+        }
+
+        if(ttl != null && (ttl.isNegative() || ttl.isZero())) {
+            throw new IllegalArgumentException("ttl must be positive");
+        }
+
+        this.imageSource = imageSource;
+        this.maxBytes = maxBytes;
+        this.ttlNanos = ttl == null ? 0 : ttl.toNanos();
+    }
+
+    /**
+     * Returns the cached image data for an identifier, fetching it from the underlying source if it's missing or expired.
+     * Failures from the underlying source aren't cached.
+     * @param imageId the image identifier.
+     * @return image data corresponding to the image.
+     * @throws IllegalArgumentException if we can't fetch the image.
+     */
+    @Override
+    public ImageData getImageData(final String imageId) throws IllegalArgumentException {
+        final String key = DigestUtils.sha256Hex(imageId);
+
+        synchronized(this) {
+            final Entry entry = entries.get(key);
+
+            if(entry != null) {
+                if(ttlNanos == 0 || System.nanoTime() - entry.expiry < 0) {
+                    hits.incrementAndGet();
+                    return entry.blob.imageData;
+                }
+
+                remove(key, entry);
+            }
+        }
+
+        misses.incrementAndGet();
+
+        // fetch outside the lock, so a slow download doesn't block other threads
+        final ImageData imageData = imageSource.getImageData(imageId);
+
+        final long size = imageData.getSize();
+
+        if(size > maxBytes) {
+            return imageData;
+        }
+
+        final String contentKey = imageData.getType().name() + ':' + Hex.encodeHexString(DigestUtils.digest(DigestUtils.getSha256Digest(), imageData.getBuffer()));
+
+        synchronized(this) {
+            final Entry existing = entries.get(key);
+
+            if(existing != null) {
+                // another thread fetched it in the meantime
+                remove(key, existing);
+            }
+
+            Blob blob = blobs.get(contentKey);
+
+            if(blob == null) {
+                blob = new Blob(imageData);
+                blobs.put(contentKey, blob);
+                currentBytes += size;
+            }
+
+            blob.references++;
+            entries.put(key, new Entry(contentKey, blob, ttlNanos == 0 ? 0 : System.nanoTime() + ttlNanos));
+
+            evict();
+
+            return blob.imageData;
+        }
+    }
+
+    /**
+     * Discards all cached images. The counters are not reset.
+     */
+    public synchronized void invalidate() {
+        entries.clear();
+        blobs.clear();
+        currentBytes = 0;
+    }
+
+    /**
+     * Get the number of requests which were served from the cache.
+     * @return the number of cache hits.
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Get the number of requests which had to be fetched from the underlying source.
+     * @return the number of cache misses.
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Get the number of entries which were discarded to keep the cache within its size budget.
+     * Expired entries aren't counted.
+     * @return the number of evictions.
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * Get the total size in bytes of the distinct images currently cached.
+     * @return the cache size in bytes.
+     */
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    /**
+     * Get the number of image identifiers currently cached.
+     * @return the number of entries.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /** Evicts least-recently-used entries until the cache is within its budget; caller must hold the lock. */
+    private void evict() {
+        final Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+
+        while(currentBytes > maxBytes && iterator.hasNext()) {
+            final Entry entry = iterator.next().getValue();
+            iterator.remove();
+            release(entry);
+            evictions.incrementAndGet();
+        }
+    }
+
+    /** Removes a single entry; caller must hold the lock. */
+    private void remove(final String key, final Entry entry) {
+        entries.remove(key);
+        release(entry);
+    }
+
+    /** Drops an entry's reference to its image data, discarding the data once nothing refers to it. */
+    private void release(final Entry entry) {
+        if(--entry.blob.references == 0) {
+            blobs.remove(entry.contentKey);
+            currentBytes -= entry.blob.imageData.getSize();
+        }
+    }
+
+    /** A cached image identifier. */
+    private static class Entry {
+        private final String contentKey;
+        private final Blob blob;
+        /** When the entry expires, as per System.nanoTime(); unused if entries never expire. */
+        private final long expiry;
+
+        private Entry(final String contentKey, final Blob blob, final long expiry) {
+            this.contentKey = contentKey;
+            this.blob = blob;
+            this.expiry = expiry;
+        }
+    }
+
+    /** A cached image, shared between all the identifiers which resolved to it. */
+    private static class Blob {
+        private final ImageData imageData;
+        private int references;
+
+        private Blob(final ImageData imageData) {
+            this.imageData = imageData;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.codec.digest.DigestUtils;
+
+/**
+ * A PowerPointService decorator which returns a previously rendered PowerPoint file if asked to render the same data
+ *   again, e.g. when several users download the same dashboard.
+ *
+ * Renderings are identified by a SHA-256 digest of the method called, the content of its arguments, the current
+ *   {@link TemplateSettings} and the template file itself, and are stored in a pluggable {@link RenderCache}, e.g. a
+ *   {@link MemoryRenderCache} or a {@link DiskRenderCache}. The template's digest is computed on first use; call
+ *   {@link #invalidate()} if the template changes.
+ *
+ * Images are identified by their identifiers rather than their content, so use a cache with a TTL if the images behind
+ *   web URLs may change. Methods returning an XMLSlideShow return a new copy each time.
+ */
+public class CachingPowerPointService extends SerializingPowerPointService {
+
+    /** The source of the template, used to identify it. */
+    private final TemplateSource templateSource;
+
+    /** Where renderings are stored. */
+    private final RenderCache cache;
+
+    /** Digest of the template file, or null if it hasn't been computed yet. */
+    private volatile String templateDigest;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Constructor for a CachingPowerPointService.
+     * @param delegate the service which actually renders presentations.
+     * @param templateSource the source of the template used by the delegate.
+     * @param settingsSource the source of the template settings used by the delegate.
+     * @param cache where to store renderings.
+     */
+    public CachingPowerPointService(
+            final PowerPointService delegate,
+            final TemplateSource templateSource,
+            final TemplateSettingsSource settingsSource,
+            final RenderCache cache
+    ) {
+        super(delegate, settingsSource);
+        this.templateSource = templateSource;
+        this.cache = cache;
+    }
+
+    @Override
+    byte[] render(final String key, final Renderer renderer) throws TemplateLoadException, IOException {
+        // The template's digest is captured before rendering, so we can tell if it's invalidated while we render; in
+        //   which case the rendering may be based on the old template and mustn't be stored.
+        final String digest = templateDigest();
+        final String cacheKey = ContentHasher.hash(key, digest);
+        final byte[] cached = cache.get(cacheKey);
+
+        if(cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+
+        misses.incrementAndGet();
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        renderer.render(output);
+
+        final byte[] data = output.toByteArray();
+
+        if(digest.equals(templateDigest)) {
+            try {
+                cache.put(cacheKey, data);
+            }
+            catch(RuntimeException e) {
+                // the rendering is still fine, so failing to store it shouldn't fail the request
+            }
+        }
+
+        return data;
+    }
+
+    /**
+     * Discards all stored renderings and the template digest, e.g. after the template has changed.
+     */
+    public void invalidate() {
+        templateDigest = null;
+        cache.invalidate();
+    }
+
+    /**
+     * Get the number of requests which were answered with a stored rendering.
+     * @return the number of cache hits.
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Get the number of requests which had to be rendered.
+     * @return the number of cache misses.
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    private String templateDigest() throws TemplateLoadException {
+        String digest = templateDigest;
+
+        if(digest == null) {
+            try(InputStream inputStream = templateSource.getInputStream()) {
+                digest = inputStream == null ? "" : DigestUtils.sha256Hex(inputStream);
+            }
+            catch(IOException e) {
+                throw new TemplateLoadException("Error reading the template to identify it", e);
+            }
+
+            templateDigest = digest;
+        }
+
+        return digest;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import org.apache.poi.util.IOUtils;
+
+/**
+ * A TemplateSource decorator which reads and parses the template once, and keeps it until {@link #invalidate()} is called.
+ * When used with {@link PowerPointServiceImpl}, each generated PowerPoint gets a working copy of the already-parsed
+ *   template instead of reading and validating the template file again.
+ * Call {@link #invalidate()} if the underlying template changes, e.g. after a user uploads a new template file.
+ */
+public class CachingTemplateSource implements TemplateSource {
+
+    /** The source of the actual template file. */
+    private final TemplateSource templateSource;
+
+    /** The raw template file data, or null if not loaded yet. */
+    private volatile byte[] templateData;
+
+    /** The parsed template, or null if not parsed yet. */
+    private volatile TemplatePrototype prototype;
+
+    /**
+     * Constructor for the CachingTemplateSource.
+     * @param templateSource the source of the actual template file.
+     */
+    public CachingTemplateSource(final TemplateSource templateSource) {
+        this.templateSource = templateSource;
+    }
+
+    /**
+     * Returns a stream containing the cached template data, reading it from the underlying source if required.
+     * @return stream containing the data for the PowerPoint template.
+     * @throws IOException if there's an IO error reading from the underlying source.
+     */
+    @Override
+    public InputStream getInputStream() throws IOException {
+        byte[] data = templateData;
+
+        if (data == null) {
+            synchronized(this) {
+                data = templateData;
+
+                if (data == null) {
+                    try(InputStream input = templateSource.getInputStream()) {
+                        data = IOUtils.toByteArray(input);
+                    }
+
+                    templateData = data;
+                }
+            }
+        }
+
+        return new ByteArrayInputStream(data);
+    }
+
+    /**
+     * Discards the cached template, so the next request will read and parse the template from the underlying source.
+     */
+    public void invalidate() {
+        synchronized(this) {
+            templateData = null;
+            prototype = null;
+        }
+    }
+
+    /**
+     * Get the parsed template, parsing it if required.
+     * @return the parsed template.
+     * @throws TemplateLoadException if the template is invalid.
+     */
+    TemplatePrototype getPrototype() throws TemplateLoadException {
+        TemplatePrototype cached = prototype;
+
+        if (cached == null) {
+            synchronized(this) {
+                cached = prototype;
+
+                if (cached == null) {
+                    cached = new TemplatePrototype(SlideShowTemplate.load(this));
+                    prototype = cached;
+                }
+            }
+        }
+
+        return cached;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import java.lang.reflect.Field;
+import java.util.function.IntFunction;
+import org.apache.poi.xslf.usermodel.XSLFGraphicFrame;
+import org.apache.poi.xslf.usermodel.XSLFSheet;
+import org.openxmlformats.schemas.presentationml.x2006.main.CTGraphicalObjectFrame;
+
+/**
+ * Internal implementation class to add chart graphical objects to a sheet in step with POI's view of the sheet.
+ * Appending the chart XML to the shape tree directly leaves it out of the sheet's shape list and shape id allocation,
+ *   so shapes created afterwards may reuse its id and the chart had to be added before any other shapes.
+ * POI has no public factory for a plain graphical object frame, so we create a table, the only one which doesn't
+ *   need any other package parts, and overwrite its XML with the chart's. The chart then sits at the top of the z-order
+ *   and in the shape list like any other new shape, with an id from the sheet's own allocator.
+ * Until POI re-reads the sheet's shape tree, the entry in its shape list is still the table object though; so once
+ *   nothing else will be added to the sheet, {@link #reloadShapes(XSLFSheet)} makes it re-read the tree, after which
+ *   the chart is a plain {@link XSLFGraphicFrame} like it is when the presentation is loaded from a file.
+ * POI's own XSLFSheet.addChart() appends the frame XML without updating the shape list either, and the shape list can
+ *   only be reset through its private field; if that field can't be accessed, e.g. in a different POI version,
+ *   {@link #reloadShapes(XSLFSheet)} throws rather than leave the charts listed as tables.
+ */
+final class ChartFrames {
+
+    /** The sheet's lazily-built shape list; or null if it can't be accessed, e.g. in a different POI version. */
+    private static final Field SHAPES_FIELD;
+
+    /** Why the shape list field can't be accessed, or null if it can. */
+    private static final Exception SHAPES_FIELD_ERROR;
+
+    static {
+        Field field = null;
+        Exception error = null;
+
+        try {
+            field = XSLFSheet.class.getDeclaredField("_shapes");
+            field.setAccessible(true);
+        }
+        catch(ReflectiveOperationException | RuntimeException e) {
+            field = null;
+            error = e;
+        }
+
+        SHAPES_FIELD = field;
+        SHAPES_FIELD_ERROR = error;
+    }
+
+    private ChartFrames() {}
+
+    /**
+     * Adds a chart's graphical object to the top of a sheet.
+     * The table object POI created for it refers to XML which has been replaced, so it mustn't be used; until
+     *   {@link #reloadShapes(XSLFSheet)} is called, it's still in the sheet's shape list though.
+     * @param sheet the sheet to add to.
+     * @param frameXml creates the chart's graphical object XML, given the shape id allocated to it.
+     * @return the shape id allocated to the chart.
+     */
+    static int add(final XSLFSheet sheet, final IntFunction<CTGraphicalObjectFrame> frameXml) {
+        final XSLFGraphicFrame frame = sheet.createTable();
+        final int shapeId = frame.getShapeId();
+
+        final CTGraphicalObjectFrame xml = (CTGraphicalObjectFrame) frame.getXmlObject();
+        xml.set(frameXml.apply(shapeId));
+        xml.getNvGraphicFramePr().getCNvPr().setId(shapeId);
+
+        return shapeId;
+    }
+
+    /**
+     * Makes POI re-read a sheet's shape tree the next time its shapes are asked for, so the charts added by
+     *   {@link #add} are listed as graphical object frames rather than tables. Shape ids aren't affected.
+     * Shape objects obtained from the sheet beforehand no longer belong to its shape list afterwards, so this should
+     *   only be called once everything has been added to the sheet.
+     * @param sheet the sheet to reload.
+     * @throws IllegalStateException if the sheet's shape list can't be reset in this version of POI.
+     */
+    static void reloadShapes(final XSLFSheet sheet) {
+        if(SHAPES_FIELD == null) {
+            throw new IllegalStateException("Can't reload the sheet's shapes in this version of POI", SHAPES_FIELD_ERROR);
+        }
+
+        try {
+            SHAPES_FIELD.set(sheet, null);
+        }
+        catch(IllegalAccessException e) {
+            throw new IllegalStateException("Can't reload the sheet's shapes in this version of POI", e);
+        }
+    }
+}
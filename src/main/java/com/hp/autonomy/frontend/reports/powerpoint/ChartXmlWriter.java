@@ -0,0 +1,189 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.IntFunction;
+import java.util.function.IntToDoubleFunction;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.openxmlformats.schemas.drawingml.x2006.chart.CTNumData;
+import org.openxmlformats.schemas.drawingml.x2006.chart.CTStrData;
+
+/**
+ * Internal implementation class to write chart XML where the series caches are written straight from the data,
+ *   rather than building an XMLBeans object for every point.
+ *
+ * Each cache is replaced by a single placeholder point when it's set; when the chart is written, the rest of the
+ *   chart is serialized by XMLBeans as usual and each placeholder point is swapped for the real points as the XML is
+ *   copied to the output stream. Each instance should only be used for a single chart.
+ */
+class ChartXmlWriter {
+
+    /** Unique placeholder prefix, so it can't clash with any text in the chart. */
+    private final String token = "chart-cache-" + UUID.randomUUID() + '-';
+
+    /** The caches to write, indexed by the number after the placeholder prefix. */
+    private final List<CacheWriter> caches = new ArrayList<>();
+
+    /**
+     * Sets the points of a numeric cache.
+     * @param numData the cache.
+     * @param count the number of points.
+     * @param values the value of each point.
+     */
+    void setNumCache(final CTNumData numData, final int count, final IntToDoubleFunction values) {
+        numData.setPtArray(null);
+        (numData.isSetPtCount() ? numData.getPtCount() : numData.addNewPtCount()).setVal(count);
+
+        if (count > 0) {
+            final CacheWriter cache = (writer, prefix) -> {
+                for(int ii = 0; ii < count; ++ii) {
+                    writePoint(writer, prefix, ii, Double.toString(values.applyAsDouble(ii)));
+                }
+            };
+
+            numData.addNewPt().setV(register(cache));
+        }
+    }
+
+    /**
+     * Sets the points of a string cache.
+     * @param strData the cache.
+     * @param count the number of points.
+     * @param values the value of each point.
+     */
+    void setStrCache(final CTStrData strData, final int count, final IntFunction<String> values) {
+        strData.setPtArray(null);
+        (strData.isSetPtCount() ? strData.getPtCount() : strData.addNewPtCount()).setVal(count);
+
+        if (count > 0) {
+            final CacheWriter cache = (writer, prefix) -> {
+                for(int ii = 0; ii < count; ++ii) {
+                    writePoint(writer, prefix, ii, escape(values.apply(ii)));
+                }
+            };
+
+            strData.addNewPt().setV(register(cache));
+        }
+    }
+
+    private String register(final CacheWriter cache) {
+        caches.add(cache);
+        return token + (caches.size() - 1);
+    }
+
+    /**
+     * Writes the chart XML, including the caches.
+     * @param xml the chart XML.
+     * @param xmlOptions the options to save with.
+     * @param output the stream to write to; it's flushed but not closed.
+     * @throws IOException if there's an error writing.
+     */
+    void write(final XmlObject xml, final XmlOptions xmlOptions, final OutputStream output) throws IOException {
+        final XmlOptions options = new XmlOptions(xmlOptions);
+        options.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        // Without the points, the rest of the chart is small
+        final ByteArrayOutputStream skeleton = new ByteArrayOutputStream();
+        xml.save(skeleton, options);
+        final String text = new String(skeleton.toByteArray(), StandardCharsets.UTF_8);
+
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+
+        int pos = 0;
+
+        for(int tokenIdx = text.indexOf(token); tokenIdx >= 0; tokenIdx = text.indexOf(token, pos)) {
+            // The placeholder is serialized as e.g. <c:pt idx="0"><c:v>token</c:v></c:pt>, and we replace the whole
+            //   <c:pt> element with the real points.
+            final int vStart = text.lastIndexOf('<', tokenIdx);
+            final int ptStart = text.lastIndexOf('<', vStart - 1);
+            final int vEnd = text.indexOf('>', tokenIdx);
+            final int ptEnd = text.indexOf('>', vEnd + 1) + 1;
+
+            int nameEnd = ptStart + 1;
+            while(nameEnd < vStart && text.charAt(nameEnd) != ' ' && text.charAt(nameEnd) != '>') {
+                ++nameEnd;
+            }
+            // The element is 'pt' with whatever namespace prefix XMLBeans chose
+            final String prefix = text.substring(ptStart + 1, nameEnd - 2);
+
+            int idxEnd = tokenIdx + token.length();
+            while(Character.isDigit(text.charAt(idxEnd))) {
+                ++idxEnd;
+            }
+            final int cacheIdx = Integer.parseInt(text.substring(tokenIdx + token.length(), idxEnd));
+
+            writer.write(text, pos, ptStart - pos);
+            caches.get(cacheIdx).write(writer, prefix);
+            pos = ptEnd;
+        }
+
+        writer.write(text, pos, text.length() - pos);
+        writer.flush();
+    }
+
+    private static void writePoint(final Writer writer, final String prefix, final int idx, final String escapedValue) throws IOException {
+        writer.write('<');
+        writer.write(prefix);
+        writer.write("pt idx=\"");
+        writer.write(Integer.toString(idx));
+        writer.write("\"><");
+        writer.write(prefix);
+        writer.write("v>");
+        writer.write(escapedValue);
+        writer.write("</");
+        writer.write(prefix);
+        writer.write("v></");
+        writer.write(prefix);
+        writer.write("pt>");
+    }
+
+    private static String escape(final String value) {
+        if (value == null) {
+            return "";
+        }
+
+        final StringBuilder escaped = new StringBuilder(value.length());
+
+        for(int ii = 0; ii < value.length(); ++ii) {
+            final char c = value.charAt(ii);
+
+            switch(c) {
+                case '&': escaped.append("&amp;"); break;
+                case '<': escaped.append("&lt;"); break;
+                case '>': escaped.append("&gt;"); break;
+                case '\r': escaped.append("&#13;"); break;
+                default: escaped.append(c);
+            }
+        }
+
+        return escaped.toString();
+    }
+
+    /** Writes the points of a single cache. */
+    private interface CacheWriter {
+        void write(Writer writer, String prefix) throws IOException;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A PowerPointService decorator which coalesces identical concurrent requests, e.g. when many users export the same
+ *   shared dashboard at once: the first request renders the presentation, and any identical requests which arrive
+ *   while it's in progress wait for it and receive a copy of the same file instead of rendering it again.
+ *
+ * Requests are identical if they call the same method with arguments of the same content and the same
+ *   {@link TemplateSettings}. Nothing is kept once a rendering completes; wrap a {@link CachingPowerPointService} to
+ *   reuse renderings afterwards too. If the rendering fails, every waiting request fails with the same cause.
+ */
+public class CoalescingPowerPointService extends SerializingPowerPointService {
+
+    /** Renderings in progress, keyed by request digest. */
+    private final ConcurrentMap<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong renders = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Constructor for a CoalescingPowerPointService.
+     * @param delegate the service which actually renders presentations.
+     * @param settingsSource the source of the template settings used by the delegate.
+     */
+    public CoalescingPowerPointService(final PowerPointService delegate, final TemplateSettingsSource settingsSource) {
+        super(delegate, settingsSource);
+    }
+
+    @Override
+    byte[] render(final String key, final Renderer renderer) throws TemplateLoadException, IOException {
+        final CompletableFuture<byte[]> future = new CompletableFuture<>();
+        final CompletableFuture<byte[]> existing = inFlight.putIfAbsent(key, future);
+
+        if(existing != null) {
+            coalesced.incrementAndGet();
+            return await(existing);
+        }
+
+        renders.incrementAndGet();
+
+        try {
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            renderer.render(output);
+
+            final byte[] data = output.toByteArray();
+            future.complete(data);
+            return data;
+        }
+        catch(TemplateLoadException | IOException | RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        }
+        finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * Get the number of presentations which were actually rendered.
+     * @return the number of renderings.
+     */
+    public long getRenderCount() {
+        return renders.get();
+    }
+
+    /**
+     * Get the number of requests which waited for an identical request's rendering instead of rendering it again.
+     * @return the number of coalesced requests.
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * Get the number of renderings currently in progress.
+     * @return the number of in-flight renderings.
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private static byte[] await(final CompletableFuture<byte[]> future) throws TemplateLoadException, IOException {
+        try {
+            return future.get();
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for an identical rendering");
+        }
+        catch(ExecutionException e) {
+            // Wrap checked exceptions so each waiter gets its own stack trace
+            final Throwable cause = e.getCause();
+
+            if(cause instanceof TemplateLoadException) {
+                throw new TemplateLoadException(cause.getMessage(), cause);
+            }
+            else if(cause instanceof IOException) {
+                throw new IOException(cause.getMessage(), cause);
+            }
+            else if(cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            else if(cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new IllegalStateException("Error rendering the presentation", cause);
+        }
+    }
+}
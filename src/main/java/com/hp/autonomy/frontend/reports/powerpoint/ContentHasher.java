@@ -0,0 +1,234 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+
+/**
+ * Internal implementation class to compute a stable SHA-256 digest of the content of DTOs, e.g. to recognise
+ *   repeated requests to render the same data.
+ *
+ * Objects are walked by reflection: each value is written with its type and, for variable-length values, its length,
+ *   so different structures can't produce the same byte sequence. Fields are visited in name order (superclass
+ *   fields included, static and transient fields skipped), so the digest doesn't depend on declaration order, and
+ *   doubles are written by their bit pattern. The digest is stable between runs and JVMs as long as the classes
+ *   don't change. Maps are written in iteration order, so only use ordered maps if the digest must be stable.
+ */
+final class ContentHasher {
+
+    /** The fields to digest for each class. */
+    private static final ConcurrentMap<Class<?>, List<Field>> FIELDS = new ConcurrentHashMap<>();
+
+    private ContentHasher() {}
+
+    /**
+     * Computes the digest of a sequence of values.
+     * @param values the values, which may be null.
+     * @return the hex-encoded SHA-256 digest.
+     * @throws IllegalArgumentException if a value refers back to itself.
+     */
+    static String hash(final Object... values) {
+        final MessageDigest digest = DigestUtils.getSha256Digest();
+        final Visitor visitor = new Visitor(digest);
+
+        for(final Object value : values) {
+            visitor.write(value);
+        }
+
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    /** Walks a single object graph, writing it to the digest. */
+    private static class Visitor {
+        private final MessageDigest digest;
+        private final byte[] buffer = new byte[8];
+        /** The objects currently being written, to detect cycles. */
+        private final Map<Object, Object> visiting = new IdentityHashMap<>();
+
+        private Visitor(final MessageDigest digest) {
+            this.digest = digest;
+        }
+
+        private void write(final Object value) {
+            if (value == null) {
+                digest.update((byte) 'N');
+            }
+            else if (value instanceof String) {
+                digest.update((byte) 'S');
+                writeString((String) value);
+            }
+            else if (value instanceof Boolean) {
+                digest.update((byte) 'Z');
+                digest.update((byte) ((Boolean) value ? 1 : 0));
+            }
+            else if (value instanceof Double || value instanceof Float) {
+                digest.update((byte) 'D');
+                writeLong(Double.doubleToLongBits(((Number) value).doubleValue()));
+            }
+            else if (value instanceof Number) {
+                digest.update((byte) 'J');
+                writeLong(((Number) value).longValue());
+            }
+            else if (value instanceof Character) {
+                digest.update((byte) 'C');
+                writeLong((Character) value);
+            }
+            else if (value instanceof Enum) {
+                digest.update((byte) 'E');
+                writeString(((Enum<?>) value).getDeclaringClass().getName());
+                writeString(((Enum<?>) value).name());
+            }
+            else {
+                if (visiting.put(value, value) != null) {
+                    throw new IllegalArgumentException("Can't hash an object which refers to itself: " + value.getClass().getName());
+                }
+
+                try {
+                    writeObject(value);
+                }
+                finally {
+                    visiting.remove(value);
+                }
+            }
+        }
+
+        private void writeObject(final Object value) {
+            final Class<?> type = value.getClass();
+
+            if (type.isArray()) {
+                digest.update((byte) '[');
+                writeString(type.getComponentType().getName());
+
+                if (value instanceof double[]) {
+                    final double[] array = (double[]) value;
+                    writeLong(array.length);
+                    for(final double element : array) {
+                        writeLong(Double.doubleToLongBits(element));
+                    }
+                }
+                else if (value instanceof long[]) {
+                    final long[] array = (long[]) value;
+                    writeLong(array.length);
+                    for(final long element : array) {
+                        writeLong(element);
+                    }
+                }
+                else if (value instanceof int[]) {
+                    final int[] array = (int[]) value;
+                    writeLong(array.length);
+                    for(final int element : array) {
+                        writeLong(element);
+                    }
+                }
+                else if (value instanceof byte[]) {
+                    final byte[] array = (byte[]) value;
+                    writeLong(array.length);
+                    digest.update(array);
+                }
+                else {
+                    final int length = Array.getLength(value);
+                    writeLong(length);
+                    for(int ii = 0; ii < length; ++ii) {
+                        write(Array.get(value, ii));
+                    }
+                }
+            }
+            else if (value instanceof Collection) {
+                final Collection<?> collection = (Collection<?>) value;
+                digest.update((byte) 'L');
+                writeLong(collection.size());
+                for(final Object element : collection) {
+                    write(element);
+                }
+            }
+            else if (value instanceof Map) {
+                final Map<?, ?> map = (Map<?, ?>) value;
+                digest.update((byte) 'M');
+                writeLong(map.size());
+                for(final Map.Entry<?, ?> entry : map.entrySet()) {
+                    write(entry.getKey());
+                    write(entry.getValue());
+                }
+            }
+            else {
+                digest.update((byte) 'O');
+                writeString(type.getName());
+
+                for(final Field field : getFields(type)) {
+                    writeString(field.getName());
+
+                    try {
+                        write(field.get(value));
+                    }
+                    catch(IllegalAccessException e) {
+                        throw new IllegalArgumentException("Can't read field " + field + " to hash it", e);
+                    }
+                }
+            }
+        }
+
+        private void writeString(final String value) {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeLong(bytes.length);
+            digest.update(bytes);
+        }
+
+        private void writeLong(final long value) {
+            for(int ii = 0; ii < 8; ++ii) {
+                buffer[ii] = (byte) (value >>> (56 - 8 * ii));
+            }
+
+            digest.update(buffer);
+        }
+    }
+
+    /**
+     * Get the fields of a class and its superclasses which make up its content, in name order.
+     * @param type the class.
+     * @return the accessible fields.
+     */
+    private static List<Field> getFields(final Class<?> type) {
+        return FIELDS.computeIfAbsent(type, key -> {
+            final List<Field> fields = new ArrayList<>();
+
+            for(Class<?> current = key; current != null && current != Object.class; current = current.getSuperclass()) {
+                for(final Field field : current.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers()) && !field.isSynthetic()) {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    }
+                }
+            }
+
+            // Superclass fields with the same name are distinguished by their declaring class
+            fields.sort(Comparator.comparing(Field::getName).thenComparing(field -> field.getDeclaringClass().getName()));
+            return fields;
+        });
+    }
+}
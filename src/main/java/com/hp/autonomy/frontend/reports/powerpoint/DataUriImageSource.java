@@ -13,7 +13,9 @@
  */
 package com.hp.autonomy.frontend.reports.powerpoint;
 
-import org.apache.commons.codec.binary.Base64;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
 import org.apache.poi.sl.usermodel.PictureData;
 
 /**
@@ -24,6 +26,15 @@ public class DataUriImageSource implements ImageSource {
 
     private static final String DATA_PREFIX = "data:";
 
+    /** Picture types by lower-case content type; if several share a content type, the first in declaration order. */
+    private static final Map<String, PictureData.PictureType> PICTURE_TYPES = new HashMap<>();
+
+    static {
+        for(final PictureData.PictureType pictureType : PictureData.PictureType.values()) {
+            PICTURE_TYPES.putIfAbsent(pictureType.contentType.toLowerCase(Locale.ROOT), pictureType);
+        }
+    }
+
     /**
      * Accepts base64-encoded image data and converts them to image data.
      * @param imageId the image identifier.
@@ -33,25 +44,44 @@ public class DataUriImageSource implements ImageSource {
     @Override
     public ImageData getImageData(final String imageId) throws IllegalArgumentException {
         // assume it's base64 data
-        final String contentType, data;
+        final PictureData.PictureType pictureType;
+        final int dataStart;
 
         if(imageId.startsWith(DATA_PREFIX)) {
-            // e.g. 'data:image/png;base64,iVBOR....'
-            contentType = imageId.substring(DATA_PREFIX.length(), imageId.indexOf(';'));
-            data = imageId.substring(imageId.indexOf(","));
+            // e.g. 'data:image/png;base64,iVBOR....'; only the header is copied, the data is decoded where it is
+            final int comma = imageId.indexOf(',');
+
+            if(comma < 0) {
+                throw new IllegalArgumentException("Unable to parse data URI: " + imageId);
+            }
+
+            int contentTypeEnd = DATA_PREFIX.length();
+            while(contentTypeEnd < comma && imageId.charAt(contentTypeEnd) != ';') {
+                ++contentTypeEnd;
+            }
+
+            pictureType = getPictureType(imageId.substring(DATA_PREFIX.length(), contentTypeEnd));
+            dataStart = comma + 1;
         }
         else {
             // assume it's the data part of the base64-encoded JPEG, since Find sends list thumbnails this way
-            contentType = "image/jpeg";
-            data = imageId;
+            pictureType = PictureData.PictureType.JPEG;
+            dataStart = 0;
         }
 
-        for(final PictureData.PictureType pictureType : PictureData.PictureType.values()) {
-            if(pictureType.contentType.equalsIgnoreCase(contentType)) {
-                return new ImageData(pictureType, Base64.decodeBase64(data));
-            }
+        if(pictureType == null) {
+            throw new IllegalArgumentException("Unable to parse data URI: " + imageId);
         }
 
-        throw new IllegalArgumentException("Unable to parse data URI: " + imageId);
+        return new ImageData(pictureType, Base64Decoder.decode(imageId, dataStart, imageId.length()));
+    }
+
+    /**
+     * Looks up the picture type for a content type, ignoring case.
+     * @param contentType the content type, without any parameters.
+     * @return the picture type, or null if it's not a supported image type.
+     */
+    static PictureData.PictureType getPictureType(final String contentType) {
+        return PICTURE_TYPES.get(contentType.toLowerCase(Locale.ROOT));
     }
 }
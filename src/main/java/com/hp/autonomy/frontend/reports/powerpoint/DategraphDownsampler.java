@@ -0,0 +1,140 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import com.hp.autonomy.frontend.reports.powerpoint.dto.DategraphData;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Internal implementation class to reduce the number of points in a date graph before it's written to a chart, using
+ *   the Largest-Triangle-Three-Buckets algorithm so the visual shape of each series (peaks, troughs and trends) is
+ *   preserved.
+ *
+ * All the series in a date graph share the same timestamps, so rather than downsampling each series separately we
+ *   run LTTB on each series with an equal share of the point budget and keep the union of the selected timestamps for
+ *   every series. That keeps the primary and secondary axis series aligned and each series keeps at least the points
+ *   it would have chosen for itself.
+ */
+final class DategraphDownsampler {
+
+    private DategraphDownsampler() {}
+
+    /**
+     * Downsamples a date graph to at most roughly the given number of points.
+     * Each series keeps at least three points, so with very many series the result may exceed the limit.
+     * @param data the date graph data; this isn't modified.
+     * @param maxPoints the maximum number of timestamps to keep.
+     * @return new data with fewer timestamps, or the original data if it's already small enough or isn't valid.
+     */
+    static DategraphData downsample(final DategraphData data, final int maxPoints) {
+        if (maxPoints <= 0 || data.getTimestamps() == null || data.getRows() == null
+                || data.getTimestamps().length <= maxPoints || !data.validateInput()) {
+            return data;
+        }
+
+        final long[] timestamps = data.getTimestamps();
+        final List<DategraphData.Row> rows = data.getRows();
+        final int threshold = Math.max(3, maxPoints / rows.size());
+
+        final BitSet selected = new BitSet(timestamps.length);
+
+        for(final DategraphData.Row row : rows) {
+            selectPoints(timestamps, row.getValues(), threshold, selected);
+        }
+
+        final int[] indices = selected.stream().toArray();
+
+        final long[] newTimestamps = new long[indices.length];
+        for(int ii = 0; ii < indices.length; ++ii) {
+            newTimestamps[ii] = timestamps[indices[ii]];
+        }
+
+        final List<DategraphData.Row> newRows = new ArrayList<>(rows.size());
+        for(final DategraphData.Row row : rows) {
+            final double[] values = row.getValues();
+            final double[] newValues = new double[indices.length];
+
+            for(int ii = 0; ii < indices.length; ++ii) {
+                newValues[ii] = values[indices[ii]];
+            }
+
+            newRows.add(new DategraphData.Row(row.getColor(), row.getLabel(), row.isSecondaryAxis(), newValues));
+        }
+
+        return new DategraphData(newTimestamps, newRows);
+    }
+
+    /**
+     * Largest-Triangle-Three-Buckets: always keeps the first and last points, splits the rest into equal buckets
+     *   and from each bucket keeps the point forming the largest triangle with the previously kept point and the
+     *   average of the next bucket.
+     * @param x the x values.
+     * @param y the y values, the same length as x.
+     * @param threshold the number of points to keep; at least 3 and less than the number of points.
+     * @param selected the indices of the kept points are set in this.
+     */
+    private static void selectPoints(final long[] x, final double[] y, final int threshold, final BitSet selected) {
+        final int length = x.length;
+
+        if (threshold >= length) {
+            selected.set(0, length);
+            return;
+        }
+
+        final double bucketSize = (double) (length - 2) / (threshold - 2);
+
+        int a = 0;
+        selected.set(a);
+
+        for(int bucket = 0; bucket < threshold - 2; ++bucket) {
+            // Average of the next bucket, which is just the last point for the final bucket
+            final int nextStart = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            final int nextEnd = Math.min((int) Math.floor((bucket + 2) * bucketSize) + 1, length);
+
+            double avgX = 0, avgY = 0;
+            for(int ii = nextStart; ii < nextEnd; ++ii) {
+                avgX += x[ii];
+                avgY += y[ii];
+            }
+            final int nextCount = nextEnd - nextStart;
+            avgX /= nextCount;
+            avgY /= nextCount;
+
+            final int start = (int) Math.floor(bucket * bucketSize) + 1;
+            final int end = nextStart;
+
+            final double ax = x[a], ay = y[a];
+            double maxArea = -1;
+            int maxIdx = start;
+
+            for(int ii = start; ii < end; ++ii) {
+                // Twice the triangle area, which is fine for comparisons; NaN values are never chosen
+                final double area = Math.abs((ax - avgX) * (y[ii] - ay) - (ax - x[ii]) * (avgY - ay));
+
+                if (area > maxArea) {
+                    maxArea = area;
+                    maxIdx = ii;
+                }
+            }
+
+            selected.set(maxIdx);
+            a = maxIdx;
+        }
+
+        selected.set(length - 1);
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * A RenderCache which keeps renderings as .pptx files in a local directory, bounded by their total size in bytes;
+ *   the least-recently-used renderings are deleted once that's exceeded, and renderings larger than the whole budget
+ *   aren't kept. Renderings can optionally expire a fixed time after they were written.
+ *
+ * Renderings already in the directory are picked up when the cache is created, so they survive restarts. The
+ *   directory should be dedicated to a single cache; files are written to a temporary name first and then moved into
+ *   place, so readers never see a partially-written file.
+ */
+public class DiskRenderCache implements RenderCache {
+
+    /** File names of renderings, i.e. a hex-encoded SHA-256 digest. */
+    private static final Pattern FILE_NAME = Pattern.compile("[0-9a-f]{64}\\.pptx");
+
+    private static final String SUFFIX = ".pptx";
+
+    /** The directory holding the renderings. */
+    private final Path directory;
+
+    /** The maximum total size in bytes of the renderings held. */
+    private final long maxBytes;
+
+    /** How long entries live after they were written, in milliseconds, or 0 if they never expire. */
+    private final long ttlMillis;
+
+    /** Entries in access order. Guarded by this. */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Total size in bytes of the renderings held. Guarded by this. */
+    private long currentBytes;
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Constructor for a DiskRenderCache whose entries never expire.
+     * @param directory the directory to keep renderings in; it's created if required.
+     * @param maxBytes the maximum total size in bytes of the renderings to keep.
+     * @throws IOException if the directory can't be created or read.
+     */
+    public DiskRenderCache(final Path directory, final long maxBytes) throws IOException {
+        this(directory, maxBytes, null);
+    }
+
+    /**
+     * Constructor for a DiskRenderCache.
+     * @param directory the directory to keep renderings in; it's created if required.
+     * @param maxBytes the maximum total size in bytes of the renderings to keep.
+     * @param ttl how long to keep each rendering after it was written, or null if they should never expire.
+     * @throws IOException if the directory can't be created or read.
+     */
+    public DiskRenderCache(final Path directory, final long maxBytes, final Duration ttl) throws IOException {
+        if(maxBytes < 0) {
+            throw new IllegalArgumentException("maxBytes must not be negative");
+        }
+
+        if(ttl != null && (ttl.isNegative() || ttl.isZero())) {
+            throw new IllegalArgumentException("ttl must be positive");
+        }
+
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttl == null ? 0 : ttl.toMillis();
+
+        // Pick up existing renderings, treating the oldest as least-recently used
+        final List<Path> existing = new ArrayList<>();
+
+        try(DirectoryStream<Path> files = Files.newDirectoryStream(this.directory)) {
+            for(final Path file : files) {
+                if(FILE_NAME.matcher(file.getFileName().toString()).matches()) {
+                    existing.add(file);
+                }
+            }
+        }
+
+        existing.sort(Comparator.comparingLong(DiskRenderCache::lastModified));
+
+        synchronized(this) {
+            for(final Path file : existing) {
+                final String name = file.getFileName().toString();
+                add(name.substring(0, name.length() - SUFFIX.length()), Files.size(file), lastModified(file));
+            }
+
+            evict();
+        }
+    }
+
+    @Override
+    public byte[] get(final String key) {
+        synchronized(this) {
+            final Entry entry = entries.get(key);
+
+            if(entry == null) {
+                return null;
+            }
+
+            if(ttlMillis != 0 && System.currentTimeMillis() >= entry.expiry) {
+                delete(key);
+                return null;
+            }
+        }
+
+        try {
+            return Files.readAllBytes(file(key));
+        }
+        catch(IOException e) {
+            // e.g. if it was deleted by someone else
+            synchronized(this) {
+                remove(key);
+            }
+
+            return null;
+        }
+    }
+
+    @Override
+    public void put(final String key, final byte[] data) {
+        if(data.length > maxBytes) {
+            return;
+        }
+
+        try {
+            final Path temp = Files.createTempFile(directory, key, ".tmp");
+
+            try {
+                Files.write(temp, data);
+
+                try {
+                    Files.move(temp, file(key), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                }
+                catch(AtomicMoveNotSupportedException e) {
+                    Files.move(temp, file(key), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+        catch(IOException e) {
+            // e.g. if the disk is full; the rendering just isn't kept
+            return;
+        }
+
+        synchronized(this) {
+            remove(key);
+            add(key, data.length, System.currentTimeMillis());
+            evict();
+        }
+    }
+
+    @Override
+    public synchronized void invalidate() {
+        for(final String key : new ArrayList<>(entries.keySet())) {
+            delete(key);
+        }
+    }
+
+    /**
+     * Get the number of renderings which were deleted to keep the cache within its size budget.
+     * Expired renderings aren't counted.
+     * @return the number of evictions.
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * Get the total size in bytes of the renderings currently held.
+     * @return the cache size in bytes.
+     */
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    /**
+     * Get the number of renderings currently held.
+     * @return the number of entries.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private Path file(final String key) {
+        return directory.resolve(key + SUFFIX);
+    }
+
+    /** Adds an entry to the index; caller must hold the lock. */
+    private void add(final String key, final long size, final long written) {
+        entries.put(key, new Entry(size, ttlMillis == 0 ? 0 : written + ttlMillis));
+        currentBytes += size;
+    }
+
+    /** Removes an entry from the index, but not its file; caller must hold the lock. */
+    private void remove(final String key) {
+        final Entry removed = entries.remove(key);
+
+        if(removed != null) {
+            currentBytes -= removed.size;
+        }
+    }
+
+    /** Removes an entry and deletes its file; caller must hold the lock. */
+    private void delete(final String key) {
+        remove(key);
+
+        try {
+            Files.deleteIfExists(file(key));
+        }
+        catch(IOException e) {
+            // it'll be picked up again next time the cache is created, and evicted or replaced then
+        }
+    }
+
+    /** Deletes least-recently-used entries until the cache is within its budget; caller must hold the lock. */
+    private void evict() {
+        final Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        final List<String> evicted = new ArrayList<>();
+        long bytes = currentBytes;
+
+        while(bytes > maxBytes && iterator.hasNext()) {
+            final Map.Entry<String, Entry> entry = iterator.next();
+            bytes -= entry.getValue().size;
+            evicted.add(entry.getKey());
+        }
+
+        for(final String key : evicted) {
+            delete(key);
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static long lastModified(final Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        }
+        catch(IOException e) {
+            return 0;
+        }
+    }
+
+    /** A stored rendering. */
+    private static class Entry {
+        private final long size;
+        /** When the entry expires, as per System.currentTimeMillis(); unused if entries never expire. */
+        private final long expiry;
+
+        private Entry(final long size, final long expiry) {
+            this.size = size;
+            this.expiry = expiry;
+        }
+    }
+}
@@ -13,11 +13,21 @@
  */
 package com.hp.autonomy.frontend.reports.powerpoint;
 
+import java.awt.Dimension;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
 import lombok.Data;
 import org.apache.poi.sl.usermodel.PictureData;
 
 /**
  * Data class to store image type and data.
+ * The data is normally held in a byte array, but can also be held outside the heap in a direct or memory-mapped
+ *   buffer; see {@link #fromBuffer(PictureData.PictureType, ByteBuffer)}. Either way, image data is equal to other
+ *   image data with the same type, dimensions and content.
  */
 @Data
 public class ImageData {
@@ -25,6 +35,151 @@ public class ImageData {
     /** The image type. */
     private final PictureData.PictureType type;
 
-    /** The image data. */
+    /** The image data, or null if it's held in the buffer instead. */
     private final byte[] data;
+
+    /** The image data if it's held in a buffer rather than a byte array, or null. */
+    private final ByteBuffer buffer;
+
+    /** The image width in pixels as read from its header, or 0 if it's not known. */
+    private final int width;
+
+    /** The image height in pixels as read from its header, or 0 if it's not known. */
+    private final int height;
+
+    /**
+     * Constructor for the ImageData, reading the image's dimensions from its header if it's a PNG, JPEG or GIF image.
+     * @param type the image type.
+     * @param data the image data, or null if there isn't any.
+     */
+    public ImageData(final PictureData.PictureType type, final byte[] data) {
+        this(type, data, null, data == null ? null : ImageHeaders.probe(ByteBuffer.wrap(data)));
+    }
+
+    private ImageData(final PictureData.PictureType type, final byte[] data, final ByteBuffer buffer, final Dimension dimension) {
+        this.type = type;
+        this.data = data;
+        this.buffer = buffer;
+        this.width = dimension == null ? 0 : dimension.width;
+        this.height = dimension == null ? 0 : dimension.height;
+    }
+
+    /**
+     * Creates image data held in a buffer rather than a byte array, e.g. a direct or memory-mapped buffer; so large
+     *   batches of images don't have to stay on the heap until they're embedded into a presentation.
+     * @param type the image type.
+     * @param buffer the image data, from its position to its limit. It shouldn't be modified afterwards.
+     * @return the image data.
+     */
+    public static ImageData fromBuffer(final PictureData.PictureType type, final ByteBuffer buffer) {
+        final ByteBuffer view = buffer.slice().asReadOnlyBuffer();
+        return new ImageData(type, null, view, ImageHeaders.probe(view));
+    }
+
+    /**
+     * Creates image data memory-mapped from a file. The file shouldn't be modified while the image data is in use.
+     * @param type the image type.
+     * @param file the image file.
+     * @return the image data.
+     * @throws IOException if the file can't be mapped.
+     */
+    public static ImageData fromFile(final PictureData.PictureType type, final Path file) throws IOException {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return fromBuffer(type, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Get the image data. If it's held in a buffer, this returns a new copy on the heap each time.
+     * @return the image data, or null if there isn't any.
+     */
+    public byte[] getData() {
+        if(data != null || buffer == null) {
+            return data;
+        }
+
+        final byte[] copy = new byte[buffer.remaining()];
+        buffer.duplicate().get(copy);
+        return copy;
+    }
+
+    /**
+     * Get a read-only view of the image data, which doesn't copy it.
+     * @return the image data, from the buffer's position to its limit; or null if there isn't any.
+     */
+    public ByteBuffer getBuffer() {
+        if(data != null) {
+            return ByteBuffer.wrap(data).asReadOnlyBuffer();
+        }
+
+        return buffer != null ? buffer.duplicate() : null;
+    }
+
+    /**
+     * Get the size of the image data, without copying it.
+     * @return the size in bytes, or 0 if there isn't any data.
+     */
+    public int getSize() {
+        if(data != null) {
+            return data.length;
+        }
+
+        return buffer != null ? buffer.remaining() : 0;
+    }
+
+    /**
+     * Whether the image data is held in a buffer rather than a byte array.
+     * @return true if the image data is held in a buffer.
+     */
+    public boolean isBuffered() {
+        return buffer != null;
+    }
+
+    /**
+     * Copies the image data into a direct buffer outside the heap, if it isn't held in a buffer already.
+     * @return image data held in a buffer, or this image data if there isn't any data.
+     */
+    public ImageData toDirectBuffer() {
+        if(buffer != null || data == null) {
+            return this;
+        }
+
+        final ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+        direct.put(data);
+        direct.flip();
+
+        return new ImageData(type, null, direct.asReadOnlyBuffer(), hasDimensions() ? new Dimension(width, height) : null);
+    }
+
+    /**
+     * Whether the image's dimensions are known without decoding it.
+     * @return true if {@link #getWidth()} and {@link #getHeight()} are set.
+     */
+    public boolean hasDimensions() {
+        return width > 0 && height > 0;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if(this == o) {
+            return true;
+        }
+
+        if(o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        final ImageData other = (ImageData) o;
+
+        // compares the content, whether it's held in a byte array or a buffer
+        return type == other.type
+                && width == other.width
+                && height == other.height
+                && Objects.equals(getBuffer(), other.getBuffer());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, width, height, getBuffer());
+    }
 }
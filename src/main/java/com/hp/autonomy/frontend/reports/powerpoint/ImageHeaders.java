@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import java.awt.Dimension;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Internal implementation class to read an image's width and height in pixels from its header, i.e. the PNG IHDR
+ *   chunk, the JPEG SOF segment or the GIF logical screen descriptor; so we can lay out images without decoding them.
+ * The format is recognised from the data itself rather than the declared type, since e.g. data URIs without a
+ *   content type are assumed to be JPEG.
+ */
+final class ImageHeaders {
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private ImageHeaders() {}
+
+    /**
+     * Reads the image dimensions from its header.
+     * @param data the image data; its position and limit aren't changed.
+     * @return the width and height in pixels, or null if it's not a PNG, JPEG or GIF image or the header is invalid.
+     */
+    static Dimension probe(final ByteBuffer data) {
+        final ByteBuffer buffer = data.duplicate().order(ByteOrder.BIG_ENDIAN);
+        final int start = buffer.position();
+
+        try {
+            if(startsWith(buffer, start, PNG_SIGNATURE)) {
+                // 8 byte signature, then the IHDR chunk's 4 byte length and type, then its 4 byte width and height
+                if(buffer.getInt(start + 12) == 0x49484452) {
+                    return valid(buffer.getInt(start + 16), buffer.getInt(start + 20));
+                }
+            }
+            else if(startsWith(buffer, start, new byte[]{'G', 'I', 'F', '8'})) {
+                // 6 byte signature and version, then the logical screen descriptor's little-endian width and height
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                return valid(buffer.getShort(start + 6) & 0xFFFF, buffer.getShort(start + 8) & 0xFFFF);
+            }
+            else if((buffer.getShort(start) & 0xFFFF) == 0xFFD8) {
+                return probeJpeg(buffer, start + 2);
+            }
+        }
+        catch(IndexOutOfBoundsException e) {
+            // truncated header
+        }
+
+        return null;
+    }
+
+    /**
+     * Walks the JPEG segments until the start of frame segment, skipping each segment by its length.
+     * @param buffer the image data.
+     * @param offset the absolute offset of the first segment, after the start of image marker.
+     * @return the width and height, or null if there isn't a start of frame segment before the image data.
+     */
+    private static Dimension probeJpeg(final ByteBuffer buffer, final int offset) {
+        int pos = offset;
+
+        while(true) {
+            if((buffer.get(pos) & 0xFF) != 0xFF) {
+                return null;
+            }
+
+            // markers may be preceded by any number of 0xFF fill bytes
+            int marker;
+            do {
+                marker = buffer.get(++pos) & 0xFF;
+            } while(marker == 0xFF);
+            ++pos;
+
+            if(marker == 0x01 || marker >= 0xD0 && marker <= 0xD7) {
+                // standalone markers without a length
+                continue;
+            }
+
+            if(marker == 0xD9 || marker == 0xDA) {
+                // end of image, or start of scan: the frame header should have come before the image data
+                return null;
+            }
+
+            // all SOFn markers except DHT (C4), JPG (C8) and DAC (CC); the frame header has the 2 byte length,
+            //   1 byte sample precision, then the height and width
+            if(marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC) {
+                return valid(buffer.getShort(pos + 5) & 0xFFFF, buffer.getShort(pos + 3) & 0xFFFF);
+            }
+
+            final int length = buffer.getShort(pos) & 0xFFFF;
+
+            if(length < 2) {
+                return null;
+            }
+
+            pos += length;
+        }
+    }
+
+    private static boolean startsWith(final ByteBuffer buffer, final int start, final byte[] prefix) {
+        if(buffer.limit() - start < prefix.length) {
+            return false;
+        }
+
+        for(int ii = 0; ii < prefix.length; ++ii) {
+            if(buffer.get(start + ii) != prefix[ii]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static Dimension valid(final int width, final int height) {
+        return width > 0 && height > 0 ? new Dimension(width, height) : null;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Internal implementation class which resolves a batch of image identifiers concurrently before layout starts, so
+ *   e.g. a list of documents with web thumbnails costs roughly the slowest download rather than the sum of them all.
+ * The result is an ImageSource which serves the prefetched images; identifiers which failed or timed out throw
+ *   IllegalArgumentException just as the original image source would have, so callers handle them the same way.
+ */
+class ImagePrefetcher {
+
+    private ImagePrefetcher() {}
+
+    /**
+     * Fetches all the distinct non-blank image identifiers concurrently.
+     * Each image is given timeoutMillis from when a worker thread could first have started on it; images which
+     *   take longer are cancelled and treated as failures.
+     * @param executor the pool to fetch on, shared with other renders.
+     * @param imageSource the image source to fetch from; it's called from the pool's threads.
+     * @param imageIds the image identifiers to fetch, may contain duplicates and blanks.
+     * @param threads the maximum number of images to fetch at once; no prefetching is done if this is less than 2.
+     * @param timeoutMillis how long to allow for each image.
+     * @param offHeap whether to hold the prefetched images in direct buffers, see {@link ImageData#toDirectBuffer()}.
+     * @return an image source serving the prefetched images, or the original image source if nothing was prefetched.
+     */
+    static ImageSource prefetch(final ExecutorService executor, final ImageSource imageSource, final Collection<String> imageIds, final int threads, final long timeoutMillis, final boolean offHeap) {
+        final Set<String> distinct = new LinkedHashSet<>();
+
+        for(final String imageId : imageIds) {
+            if(StringUtils.isNotBlank(imageId)) {
+                distinct.add(imageId);
+            }
+        }
+
+        if(threads < 2 || distinct.size() < 2) {
+            return imageSource;
+        }
+
+        final int poolSize = Math.min(threads, distinct.size());
+        final List<String> ids = new ArrayList<>(distinct);
+        final List<Callable<ImageData>> tasks = new ArrayList<>(ids.size());
+
+        for(final String imageId : ids) {
+            tasks.add(() -> imageSource.getImageData(imageId));
+        }
+
+        final long start = System.nanoTime();
+        final List<Future<ImageData>> futures = WorkerPools.submitAll(executor, tasks, poolSize);
+
+        try {
+            final long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+            final Map<String, ImageData> images = new HashMap<>();
+            final Map<String, Exception> failures = new HashMap<>();
+
+            for(int ii = 0; ii < ids.size(); ++ii) {
+                final String imageId = ids.get(ii);
+                final Future<ImageData> future = futures.get(ii);
+
+                // The ii'th image can't start until (ii / poolSize) earlier rounds of images have finished, so it
+                //   gets that many timeouts on top of its own.
+                final long deadline = start + timeoutNanos * (ii / poolSize + 1);
+
+                try {
+                    final ImageData imageData = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    images.put(imageId, offHeap ? imageData.toDirectBuffer() : imageData);
+                }
+                catch(final TimeoutException e) {
+                    future.cancel(true);
+                    failures.put(imageId, e);
+                }
+                catch(final ExecutionException e) {
+                    failures.put(imageId, e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+                }
+                catch(final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    // leave the remaining images to be fetched on demand
+                    break;
+                }
+            }
+
+            return imageId -> {
+                final ImageData imageData = images.get(imageId);
+
+                if(imageData != null) {
+                    return imageData;
+                }
+
+                final Exception failure = failures.get(imageId);
+
+                if(failure instanceof IllegalArgumentException) {
+                    throw (IllegalArgumentException) failure;
+                }
+                else if(failure != null) {
+                    throw new IllegalArgumentException("Selected image cannot be fetched: " + imageId, failure);
+                }
+
+                return imageSource.getImageData(imageId);
+            };
+        }
+        finally {
+            // don't leave anything still running on the shared pool once we've stopped waiting for it
+            WorkerPools.cancelAll(futures);
+        }
+    }
+}
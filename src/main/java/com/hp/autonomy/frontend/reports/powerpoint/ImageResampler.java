@@ -0,0 +1,226 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import org.apache.poi.sl.usermodel.PictureData;
+
+/**
+ * Internal implementation class which shrinks images to the resolution they'll actually be shown at before they're
+ *   embedded, e.g. so a multi-megapixel JPEG used as a list thumbnail doesn't get embedded at full size.
+ * Opaque images are re-encoded as JPEG at the configured quality, and images with transparency as PNG. Images which
+ *   are already small enough, can't be decoded, or don't get any smaller are embedded as they are.
+ * Results are remembered per instance, so each instance should only be used for a single presentation.
+ * Instances are thread-safe; different images are resampled concurrently, while concurrent requests for the same image
+ *   and size wait for a single resample.
+ */
+class ImageResampler {
+
+    /** Number of PowerPoint points per inch. */
+    private static final double POINTS_PER_INCH = 72;
+
+    /** Target resolution in dots per inch. */
+    private final int dpi;
+
+    /** JPEG quality, from 0 to 1. */
+    private final float quality;
+
+    /** Resampled images, keyed by the original image and then the target pixel size. */
+    private final Map<ImageData, Map<Dimension, FutureTask<ImageData>>> resampled = new IdentityHashMap<>();
+
+    /**
+     * Constructor for the ImageResampler.
+     * @param dpi target resolution in dots per inch.
+     * @param quality JPEG quality, from 0 to 1.
+     */
+    ImageResampler(final int dpi, final float quality) {
+        this.dpi = dpi;
+        this.quality = quality;
+    }
+
+    /**
+     * Shrinks an image so it covers the target size at the configured resolution, preserving the aspect ratio.
+     * @param imageData the original image.
+     * @param width the width it will be drawn at, in PowerPoint points.
+     * @param height the height it will be drawn at, in PowerPoint points.
+     * @return the resampled image, or the original image if resampling wouldn't help.
+     */
+    ImageData resample(final ImageData imageData, final double width, final double height) {
+        final Dimension target = new Dimension(
+                (int) Math.ceil(width * dpi / POINTS_PER_INCH),
+                (int) Math.ceil(height * dpi / POINTS_PER_INCH));
+
+        // Only the lookup is locked; the resample itself runs on whichever thread asked for it first.
+        final FutureTask<ImageData> task;
+        synchronized(resampled) {
+            task = resampled.computeIfAbsent(imageData, key -> new HashMap<>())
+                    .computeIfAbsent(target, key -> new FutureTask<>(() -> resample(imageData, target)));
+        }
+
+        // does nothing if it's already been run, or is being run by another thread
+        task.run();
+
+        try {
+            return task.get();
+        }
+        catch(InterruptedException e) {
+            // the render is being cancelled, so it doesn't matter which image we use
+            Thread.currentThread().interrupt();
+            return imageData;
+        }
+        catch(ExecutionException e) {
+            // resample() doesn't throw any checked exceptions
+            final Throwable cause = e.getCause();
+            if(cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw (RuntimeException) cause;
+        }
+    }
+
+    private ImageData resample(final ImageData imageData, final Dimension target) {
+        final PictureData.PictureType type = imageData.getType();
+
+        if(target.width <= 0 || target.height <= 0
+                || type != PictureData.PictureType.JPEG && type != PictureData.PictureType.PNG && type != PictureData.PictureType.BMP) {
+            return imageData;
+        }
+
+        // If the header tells us the image wouldn't be shrunk, as below, we don't need to decode it
+        if(imageData.hasDimensions()
+                && (target.getWidth() >= imageData.getWidth() || target.getHeight() >= imageData.getHeight())) {
+            return imageData;
+        }
+
+        try {
+            final BufferedImage source = ImageIO.read(new ByteArrayInputStream(imageData.getData()));
+
+            if(source == null) {
+                return imageData;
+            }
+
+            final double scale = Math.max(target.getWidth() / source.getWidth(), target.getHeight() / source.getHeight());
+
+            if(scale >= 1) {
+                return imageData;
+            }
+
+            final boolean alpha = source.getColorModel().hasAlpha();
+            final BufferedImage scaled = downscale(source,
+                    Math.max(1, (int) Math.round(source.getWidth() * scale)),
+                    Math.max(1, (int) Math.round(source.getHeight() * scale)),
+                    alpha);
+
+            final byte[] encoded = alpha ? writePng(scaled) : writeJpeg(scaled, quality);
+
+            if(encoded == null || encoded.length >= imageData.getSize()) {
+                return imageData;
+            }
+
+            return new ImageData(alpha ? PictureData.PictureType.PNG : PictureData.PictureType.JPEG, encoded);
+        }
+        catch(IOException | RuntimeException e) {
+            // if there's any errors, we'll just use the original image
+            return imageData;
+        }
+    }
+
+    /**
+     * Scales an image down, halving the size in steps to avoid the aliasing from a single large bilinear step.
+     * @param source the source image.
+     * @param width the target width in pixels.
+     * @param height the target height in pixels.
+     * @param alpha whether to preserve transparency; if not, transparent areas are drawn on white.
+     * @return the scaled image.
+     */
+    private static BufferedImage downscale(final BufferedImage source, final int width, final int height, final boolean alpha) {
+        BufferedImage current = source;
+        int currentW = source.getWidth(), currentH = source.getHeight();
+
+        do {
+            currentW = Math.max(width, currentW / 2);
+            currentH = Math.max(height, currentH / 2);
+
+            final BufferedImage next = new BufferedImage(currentW, currentH, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            final Graphics2D g = next.createGraphics();
+
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+
+                if(!alpha) {
+                    g.setColor(Color.WHITE);
+                    g.fillRect(0, 0, currentW, currentH);
+                }
+
+                g.drawImage(current, 0, 0, currentW, currentH, null);
+            }
+            finally {
+                g.dispose();
+            }
+
+            current = next;
+        }
+        while(currentW != width || currentH != height);
+
+        return current;
+    }
+
+    private static byte[] writePng(final BufferedImage image) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        return ImageIO.write(image, "png", output) ? output.toByteArray() : null;
+    }
+
+    private static byte[] writeJpeg(final BufferedImage image, final float quality) throws IOException {
+        final Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+
+        if(!writers.hasNext()) {
+            return null;
+        }
+
+        final ImageWriter writer = writers.next();
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try(ImageOutputStream stream = ImageIO.createImageOutputStream(output)) {
+            final ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        }
+        finally {
+            writer.dispose();
+        }
+
+        return output.toByteArray();
+    }
+}
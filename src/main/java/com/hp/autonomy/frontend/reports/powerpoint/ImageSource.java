@@ -24,6 +24,12 @@ package com.hp.autonomy.frontend.reports.powerpoint;
  *   WebAndDataUriImageSource.allowHttpURI which only allows URL paths ending in '.jpeg', '.jpg', '.png' or '.gif'
  *   with your own whitelist.
  *
+ * Image sources are called from the rendering thread, unless image prefetching is enabled with
+ *   {@link TemplateSettings#setImagePrefetchThreads(int)} or reports are laid out concurrently with
+ *   {@link TemplateSettings#setReportThreads(int)}; in which case they're called concurrently from worker threads,
+ *   so they must be thread-safe and mustn't rely on state tied to the rendering thread, e.g. thread-local security
+ *   context. DataUriImageSource and WebAndDataUriImageSource are both safe to use from worker threads.
+ *
  *  @see DataUriImageSource
  *  @see WebAndDataUriImageSource
  */
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import com.hp.autonomy.frontend.reports.powerpoint.dto.ListData;
+
+/**
+ * Internal implementation class holding the measured layout of a single document in a list, so every document can be
+ *   measured and assigned to a page before any slides or shapes are created.
+ * The size of a list element doesn't depend on where it's drawn, so only the vertical position is set during
+ *   pagination.
+ */
+class ListItemLayout {
+
+    /** The document to draw. */
+    final ListData.Document doc;
+
+    /** The thumbnail image, already resampled; or null if there's no thumbnail or it couldn't be fetched. */
+    final ImageData thumbnail;
+
+    /** Height of the title, date and reference text, i.e. where the thumbnail starts, relative to the element. */
+    final double thumbnailOffset;
+
+    /** Total height of the element, including the icon and thumbnail. */
+    final double height;
+
+    /** Top of the element on its page, in PowerPoint coordinates. */
+    double y;
+
+    ListItemLayout(final ListData.Document doc, final ImageData thumbnail, final double thumbnailOffset, final double height) {
+        this.doc = doc;
+        this.thumbnail = thumbnail;
+        this.thumbnailOffset = thumbnailOffset;
+        this.height = height;
+    }
+}
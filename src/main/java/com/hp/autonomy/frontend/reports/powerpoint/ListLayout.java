@@ -0,0 +1,52 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import java.util.List;
+
+/**
+ * Internal implementation class holding the measured layout of a whole list of documents, i.e. where its headers and
+ *   elements go and which page each element is on; so a list can be laid out without a presentation, e.g. on a worker
+ *   thread, and its shapes created afterwards.
+ */
+class ListLayout {
+
+    /** Left edge of the headers and icons, in PowerPoint coordinates. */
+    final double headerX;
+
+    /** Width of the headers. */
+    final double headerWidth;
+
+    /** Left edge of the list elements' text and thumbnails, in PowerPoint coordinates. */
+    final double listX;
+
+    /** Width of the list elements' text boxes. */
+    final double listWidth;
+
+    /** Whether the summary goes to the right of the thumbnail, rather than under it. */
+    final boolean thumbBesideText;
+
+    /** The elements on each page, with their vertical positions set. */
+    final List<List<ListItemLayout>> pages;
+
+    ListLayout(final double headerX, final double headerWidth, final double listX, final double listWidth, final boolean thumbBesideText, final List<List<ListItemLayout>> pages) {
+        this.headerX = headerX;
+        this.headerWidth = headerWidth;
+        this.listX = listX;
+        this.listWidth = listWidth;
+        this.thumbBesideText = thumbBesideText;
+        this.pages = pages;
+    }
+}
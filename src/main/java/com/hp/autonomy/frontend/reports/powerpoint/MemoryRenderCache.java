@@ -0,0 +1,157 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A RenderCache which keeps renderings in memory, bounded by their total size in bytes; the least-recently-used
+ *   renderings are evicted once that's exceeded, and renderings larger than the whole budget aren't kept.
+ * Renderings can optionally expire a fixed time after they were stored.
+ */
+public class MemoryRenderCache implements RenderCache {
+
+    /** The maximum total size in bytes of the renderings held. */
+    private final long maxBytes;
+
+    /** How long entries live after they were stored, in nanoseconds, or 0 if they never expire. */
+    private final long ttlNanos;
+
+    /** Entries in access order. Guarded by this. */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Total size in bytes of the renderings held. Guarded by this. */
+    private long currentBytes;
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Constructor for a MemoryRenderCache whose entries never expire.
+     * @param maxBytes the maximum total size in bytes of the renderings to keep.
+     */
+    public MemoryRenderCache(final long maxBytes) {
+        this(maxBytes, null);
+    }
+
+    /**
+     * Constructor for a MemoryRenderCache.
+     * @param maxBytes the maximum total size in bytes of the renderings to keep.
+     * @param ttl how long to keep each rendering after it was stored, or null if they should never expire.
+     */
+    public MemoryRenderCache(final long maxBytes, final Duration ttl) {
+        if(maxBytes < 0) {
+            throw new IllegalArgumentException("maxBytes must not be negative");
+        }
+
+        if(ttl != null && (ttl.isNegative() || ttl.isZero())) {
+            throw new IllegalArgumentException("ttl must be positive");
+        }
+
+        this.maxBytes = maxBytes;
+        this.ttlNanos = ttl == null ? 0 : ttl.toNanos();
+    }
+
+    @Override
+    public synchronized byte[] get(final String key) {
+        final Entry entry = entries.get(key);
+
+        if(entry == null) {
+            return null;
+        }
+
+        if(ttlNanos != 0 && System.nanoTime() - entry.expiry >= 0) {
+            remove(key);
+            return null;
+        }
+
+        return entry.data;
+    }
+
+    @Override
+    public synchronized void put(final String key, final byte[] data) {
+        remove(key);
+
+        if(data.length > maxBytes) {
+            return;
+        }
+
+        entries.put(key, new Entry(data, ttlNanos == 0 ? 0 : System.nanoTime() + ttlNanos));
+        currentBytes += data.length;
+
+        final Iterator<Entry> iterator = entries.values().iterator();
+
+        while(currentBytes > maxBytes && iterator.hasNext()) {
+            currentBytes -= iterator.next().data.length;
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    @Override
+    public synchronized void invalidate() {
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    /**
+     * Get the number of renderings which were discarded to keep the cache within its size budget.
+     * Expired renderings aren't counted.
+     * @return the number of evictions.
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * Get the total size in bytes of the renderings currently held.
+     * @return the cache size in bytes.
+     */
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    /**
+     * Get the number of renderings currently held.
+     * @return the number of entries.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /** Removes a single entry if present; caller must hold the lock. */
+    private void remove(final String key) {
+        final Entry removed = entries.remove(key);
+
+        if(removed != null) {
+            currentBytes -= removed.data.length;
+        }
+    }
+
+    /** A stored rendering. */
+    private static class Entry {
+        private final byte[] data;
+        /** When the entry expires, as per System.nanoTime(); unused if entries never expire. */
+        private final long expiry;
+
+        private Entry(final byte[] data, final long expiry) {
+            this.data = data;
+            this.expiry = expiry;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.openxml4j.opc.PackagePartName;
+import org.apache.poi.openxml4j.opc.PackageRelationship;
+import org.apache.poi.openxml4j.opc.PackageRelationshipCollection;
+import org.apache.poi.openxml4j.opc.PackagingURIHelper;
+import org.apache.poi.openxml4j.opc.TargetMode;
+
+/**
+ * Internal implementation class to remove media, chart and embedded workbook parts which can't be reached by
+ *   following relationships from the package root, before a presentation is written out.
+ * POI leaves e.g. the charts' workbooks and styles behind when the template's slides are removed, and parts which
+ *   are only referenced by other unreachable parts are removed too, as are the relationship parts of removed parts.
+ */
+final class OrphanParts {
+
+    /** Only parts in these folders are removed; everything else is left as it is. */
+    private static final String[] REMOVABLE_FOLDERS = {"/ppt/media/", "/ppt/charts/", "/ppt/embeddings/"};
+
+    private OrphanParts() {}
+
+    /**
+     * Removes the unreachable media, chart and embedded workbook parts from a package.
+     * @param opcPackage the PowerPoint zip package.
+     * @return the number of parts removed.
+     * @throws InvalidFormatException if the package's relationships can't be read.
+     */
+    static int remove(final OPCPackage opcPackage) throws InvalidFormatException {
+        final Set<PackagePartName> reachable = new HashSet<>();
+        final Deque<PackageRelationshipCollection> pending = new ArrayDeque<>();
+        pending.add(opcPackage.getRelationships());
+
+        while(!pending.isEmpty()) {
+            for(final PackageRelationship relationship : pending.pop()) {
+                if(relationship.getTargetMode() != TargetMode.INTERNAL) {
+                    continue;
+                }
+
+                final URI target = PackagingURIHelper.resolvePartUri(relationship.getSourceURI(), relationship.getTargetURI());
+                final PackagePartName name = PackagingURIHelper.createPartName(target);
+
+                if(reachable.add(name)) {
+                    final PackagePart part = opcPackage.getPart(name);
+
+                    if(part != null && !part.isRelationshipPart()) {
+                        pending.add(part.getRelationships());
+                    }
+                }
+            }
+        }
+
+        int removed = 0;
+
+        for(final PackagePart part : opcPackage.getParts()) {
+            if(!part.isRelationshipPart() && !reachable.contains(part.getPartName()) && isRemovable(part.getPartName().getName())) {
+                opcPackage.removePart(part);
+                ++removed;
+            }
+        }
+
+        // POI removes e.g. a removed slide's charts but not their relationship parts; a part created later with the
+        //   same name would inherit those relationships, so remove the relationships of every part which is gone
+        for(final PackagePart part : opcPackage.getParts()) {
+            if(part.isRelationshipPart() && isRemovable(part.getPartName().getName())) {
+                final URI source = PackagingURIHelper.getSourcePartUriFromRelationshipPartUri(part.getPartName().getURI());
+
+                if(opcPackage.getPart(PackagingURIHelper.createPartName(source)) == null) {
+                    opcPackage.removePart(part);
+                }
+            }
+        }
+
+        return removed;
+    }
+
+    private static boolean isRemovable(final String name) {
+        for(final String folder : REMOVABLE_FOLDERS) {
+            if(name.startsWith(folder)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePartName;
+import org.apache.poi.openxml4j.opc.PackagingURIHelper;
+
+/**
+ * Internal implementation class to generate new unique package part names within a PowerPoint zip file while
+ *   rendering a single presentation, given a base name which has a number before the file extension, e.g. charts
+ *   chart2.xml, chart3.xml etc. based on a template's chart1.xml.
+ * It remembers the next free number for each name, so it only needs to check the package for names which were
+ *   taken since, rather than every name from the template's number onwards each time.
+ * Not thread-safe; use one instance per presentation.
+ */
+class PartNameAllocator {
+
+    private static final Pattern NUMBERED_NAME = Pattern.compile("(.*?)(\\d+)(\\.\\w+)?$");
+
+    private final OPCPackage opcPackage;
+
+    /** The next number to try, by the part name with its number removed. */
+    private final Map<String, Integer> nextNumbers = new HashMap<>();
+
+    /**
+     * Constructor.
+     * @param opcPackage the PowerPoint zip package to generate names in.
+     */
+    PartNameAllocator(final OPCPackage opcPackage) {
+        this.opcPackage = opcPackage;
+    }
+
+    /**
+     * Generate a new unique package part name.
+     * @param baseName the original name.
+     * @return a new unique package part name with an incremented number if the old name had a number before the file
+     *         extension, or the old name otherwise.
+     * @throws InvalidFormatException if there was an exception while generating the new name.
+     */
+    PackagePartName allocate(final String baseName) throws InvalidFormatException {
+        final Matcher matcher = NUMBERED_NAME.matcher(baseName);
+
+        if (matcher.find()) {
+            final String prefix = matcher.group(1);
+            final String suffix = matcher.group(3) == null ? "" : matcher.group(3);
+            final String key = prefix + '\0' + suffix;
+
+            final int templateNum = Integer.parseInt(matcher.group(2));
+            final Integer next = nextNumbers.get(key);
+
+            for (int ii = next == null ? templateNum + 1 : Math.max(next, templateNum + 1); ii < Integer.MAX_VALUE; ++ii) {
+                final PackagePartName testName = PackagingURIHelper.createPartName(prefix + ii + suffix);
+
+                if (opcPackage.getPart(testName) == null) {
+                    nextNumbers.put(key, ii + 1);
+                    return testName;
+                }
+            }
+        }
+
+        // If the document doesn't have a numeric extension, just return it
+        return PackagingURIHelper.createPartName(baseName);
+    }
+}
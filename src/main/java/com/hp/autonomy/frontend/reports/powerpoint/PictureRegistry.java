@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.poi.sl.usermodel.PictureData;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFPictureData;
+
+/**
+ * Internal implementation class which embeds each distinct image into a presentation only once while it's rendered.
+ * XMLSlideShow.addPicture() reuses identical pictures by comparing checksums with every picture already in the
+ *   presentation; this looks them up by a hash of the image data instead. Images which come from an identifier we've
+ *   already embedded, at the same size, are reused without looking at their data at all, since image sources return
+ *   the same image for the same identifier within a render.
+ * Not thread-safe; use one instance per presentation.
+ */
+class PictureRegistry {
+
+    private final XMLSlideShow ppt;
+
+    /** Pictures by image identifier, type, size and dimensions; so resampled copies of an image are kept apart. */
+    private final Map<ImageIdKey, XSLFPictureData> byImageId = new HashMap<>();
+
+    /** Pictures by image type and a hash of their data. */
+    private final Map<String, XSLFPictureData> byContent = new HashMap<>();
+
+    /**
+     * Constructor.
+     * @param ppt the presentation to embed images into.
+     */
+    PictureRegistry(final XMLSlideShow ppt) {
+        this.ppt = ppt;
+    }
+
+    /**
+     * Embeds an image into the presentation, unless it's already there.
+     * @param imageId the identifier the image was fetched with, or null if it's not known.
+     * @param imageData the image data, after any resampling.
+     * @return the picture data.
+     */
+    XSLFPictureData add(final String imageId, final ImageData imageData) {
+        final ImageIdKey idKey = imageId == null ? null : new ImageIdKey(imageId, imageData);
+
+        if(idKey != null) {
+            final XSLFPictureData picture = byImageId.get(idKey);
+
+            if(picture != null) {
+                return picture;
+            }
+        }
+
+        final String contentKey = imageData.getType().name() + ':' + Hex.encodeHexString(DigestUtils.digest(DigestUtils.getSha256Digest(), imageData.getBuffer()));
+        XSLFPictureData picture = byContent.get(contentKey);
+
+        if(picture == null) {
+            // POI only accepts picture data as a byte array and keeps package parts in memory, so an image held in a
+            //   buffer is copied onto the heap here; but only once it's actually being embedded.
+            picture = ppt.addPicture(imageData.getData(), imageData.getType());
+            byContent.put(contentKey, picture);
+        }
+
+        if(idKey != null) {
+            byImageId.put(idKey, picture);
+        }
+
+        return picture;
+    }
+
+    /**
+     * Key for a picture by image identifier, type, size and dimensions.
+     * Image identifiers can be data URIs several megabytes long, so the key only refers to the identifier rather than
+     *   copying it into a larger string; the identifier's hash code is cached by the string itself, and comparing it
+     *   with the same string instance is immediate.
+     */
+    private static final class ImageIdKey {
+        private final String imageId;
+        private final PictureData.PictureType type;
+        private final int size;
+        private final int width;
+        private final int height;
+
+        ImageIdKey(final String imageId, final ImageData imageData) {
+            this.imageId = imageId;
+            this.type = imageData.getType();
+            this.size = imageData.getSize();
+            this.width = imageData.getWidth();
+            this.height = imageData.getHeight();
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if(this == o) {
+                return true;
+            }
+
+            if(!(o instanceof ImageIdKey)) {
+                return false;
+            }
+
+            final ImageIdKey other = (ImageIdKey) o;
+
+            return size == other.size
+                    && width == other.width
+                    && height == other.height
+                    && type == other.type
+                    && imageId.equals(other.imageId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(imageId, type, size, width, height);
+        }
+    }
+}
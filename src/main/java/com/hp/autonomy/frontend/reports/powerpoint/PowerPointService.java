@@ -21,10 +21,16 @@ import com.hp.autonomy.frontend.reports.powerpoint.dto.ReportData;
 import com.hp.autonomy.frontend.reports.powerpoint.dto.SunburstData;
 import com.hp.autonomy.frontend.reports.powerpoint.dto.TableData;
 import com.hp.autonomy.frontend.reports.powerpoint.dto.TopicMapData;
+import java.io.IOException;
+import java.io.OutputStream;
 import org.apache.poi.xslf.usermodel.XMLSlideShow;
 
 /**
  * Primary interface to the PowerPoint API.
+ * Each visualization can either be returned as a PowerPoint presentation object, or, for convenience, written to an
+ *   {@link OutputStream}. {@link PowerPointServiceImpl} writes each slide of a list or report to the stream as soon
+ *   as it's finished and releases it, so those overloads don't keep every slide in memory; the single slide
+ *   visualizations are just built in memory and written.
  * @see <a href="https://github.com/opentext-idol/java-powerpoint-report/" target="_blank">README.md</a> for examples and usage instructions.
  */
 public interface PowerPointService {
@@ -100,4 +106,107 @@ public interface PowerPointService {
      */
     XMLSlideShow report(ReportData report, final boolean slidePerVisualizer) throws TemplateLoadException;
 
+    /**
+     * Renders a topic map and writes it as a PowerPoint file to the output stream.
+     * @param topicmap the data representing the topic map paths.
+     * @param outputStream where to write the PowerPoint file; it won't be closed.
+     * @throws TemplateLoadException if the template is invalid.
+     * @throws IOException if there's an error writing to the output stream.
+     * @see #topicmap(TopicMapData)
+     */
+    default void topicmap(final TopicMapData topicmap, final OutputStream outputStream) throws TemplateLoadException, IOException {
+        try(XMLSlideShow ppt = topicmap(topicmap)) {
+            ppt.write(outputStream);
+        }
+    }
+
+    /**
+     * Renders a sunburst and writes it as a PowerPoint file to the output stream.
+     * @param sunburst the data representing the sunburst.
+     * @param outputStream where to write the PowerPoint file; it won't be closed.
+     * @throws TemplateLoadException if the template is invalid.
+     * @throws IOException if there's an error writing to the output stream.
+     * @see #sunburst(SunburstData)
+     */
+    default void sunburst(final SunburstData sunburst, final OutputStream outputStream) throws TemplateLoadException, IOException {
+        try(XMLSlideShow ppt = sunburst(sunburst)) {
+            ppt.write(outputStream);
+        }
+    }
+
+    /**
+     * Renders a table and writes it as a PowerPoint file to the output stream.
+     * @param tableData the data representing the table.
+     * @param title an optional title.
+     * @param outputStream where to write the PowerPoint file; it won't be closed.
+     * @throws TemplateLoadException if the template is invalid.
+     * @throws IOException if there's an error writing to the output stream.
+     * @see #table(TableData, String)
+     */
+    default void table(final TableData tableData, final String title, final OutputStream outputStream) throws TemplateLoadException, IOException {
+        try(XMLSlideShow ppt = table(tableData, title)) {
+            ppt.write(outputStream);
+        }
+    }
+
+    /**
+     * Renders a map and writes it as a PowerPoint file to the output stream.
+     * @param map the data representing the map.
+     * @param title an optional title.
+     * @param outputStream where to write the PowerPoint file; it won't be closed.
+     * @throws TemplateLoadException if the template is invalid.
+     * @throws IOException if there's an error writing to the output stream.
+     * @see #map(MapData, String)
+     */
+    default void map(final MapData map, final String title, final OutputStream outputStream) throws TemplateLoadException, IOException {
+        try(XMLSlideShow ppt = map(map, title)) {
+            ppt.write(outputStream);
+        }
+    }
+
+    /**
+     * Renders a list of documents and writes it as a PowerPoint file to the output stream.
+     * @param documentList the data containing all the documents
+     * @param results an optional string which will be shown in the top-left.
+     * @param sortBy an optional string which will be shown in the top-right.
+     * @param outputStream where to write the PowerPoint file; it won't be closed.
+     * @throws TemplateLoadException if the template is invalid.
+     * @throws IOException if there's an error writing to the output stream.
+     * @see #list(ListData, String, String)
+     */
+    default void list(final ListData documentList, final String results, final String sortBy, final OutputStream outputStream) throws TemplateLoadException, IOException {
+        try(XMLSlideShow ppt = list(documentList, results, sortBy)) {
+            ppt.write(outputStream);
+        }
+    }
+
+    /**
+     * Renders a date graph and writes it as a PowerPoint file to the output stream.
+     * @param data the data representing the graph series to plot.
+     * @param outputStream where to write the PowerPoint file; it won't be closed.
+     * @throws TemplateLoadException if the template is invalid.
+     * @throws IOException if there's an error writing to the output stream.
+     * @see #graph(DategraphData)
+     */
+    default void graph(final DategraphData data, final OutputStream outputStream) throws TemplateLoadException, IOException {
+        try(XMLSlideShow ppt = graph(data)) {
+            ppt.write(outputStream);
+        }
+    }
+
+    /**
+     * Renders a composite report and writes it as a PowerPoint file to the output stream.
+     * @param report the data containing a list of visualizations to render.
+     * @param slidePerVisualizer if true, we'll put each visualization on a separate slide.
+     * @param outputStream where to write the PowerPoint file; it won't be closed.
+     * @throws TemplateLoadException if the template is invalid.
+     * @throws IOException if there's an error writing to the output stream.
+     * @see #report(ReportData, boolean)
+     */
+    default void report(final ReportData report, final boolean slidePerVisualizer, final OutputStream outputStream) throws TemplateLoadException, IOException {
+        try(XMLSlideShow ppt = report(report, slidePerVisualizer)) {
+            ppt.write(outputStream);
+        }
+    }
+
 }
@@ -30,26 +30,30 @@ import java.awt.geom.Path2D;
 import java.awt.geom.Rectangle2D;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.URI;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.xml.namespace.QName;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.poi.ooxml.POIXMLDocumentPart;
-import org.apache.poi.ooxml.POIXMLException;
+import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
-import org.apache.poi.openxml4j.exceptions.NotOfficeXmlFileException;
 import org.apache.poi.openxml4j.opc.OPCPackage;
 import org.apache.poi.openxml4j.opc.PackagePart;
 import org.apache.poi.openxml4j.opc.PackagePartName;
 import org.apache.poi.openxml4j.opc.PackageRelationship;
-import org.apache.poi.openxml4j.opc.PackagingURIHelper;
 import org.apache.poi.openxml4j.opc.TargetMode;
 import org.apache.poi.sl.usermodel.ShapeType;
 import org.apache.poi.sl.usermodel.TableCell;
@@ -57,14 +61,18 @@ import org.apache.poi.sl.usermodel.TextParagraph;
 import org.apache.poi.sl.usermodel.TextShape;
 import org.apache.poi.sl.usermodel.VerticalAlignment;
 import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.util.AreaReference;
 import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.ss.util.CellReference;
-import org.apache.poi.util.IOUtils;
+import org.apache.poi.util.Units;
 import org.apache.poi.xslf.usermodel.XMLSlideShow;
 import org.apache.poi.xslf.usermodel.XSLFAutoShape;
-import org.apache.poi.xslf.usermodel.XSLFChart;
 import org.apache.poi.xslf.usermodel.XSLFFreeformShape;
 import org.apache.poi.xslf.usermodel.XSLFGroupShape;
 import org.apache.poi.xslf.usermodel.XSLFPictureData;
@@ -77,7 +85,7 @@ import org.apache.poi.xslf.usermodel.XSLFTableCell;
 import org.apache.poi.xslf.usermodel.XSLFTextBox;
 import org.apache.poi.xslf.usermodel.XSLFTextParagraph;
 import org.apache.poi.xslf.usermodel.XSLFTextRun;
-import org.apache.poi.xssf.usermodel.XSSFCell;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFRow;
 import org.apache.poi.xssf.usermodel.XSSFSheet;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
@@ -91,14 +99,12 @@ import org.openxmlformats.schemas.drawingml.x2006.chart.CTLegendEntry;
 import org.openxmlformats.schemas.drawingml.x2006.chart.CTMarker;
 import org.openxmlformats.schemas.drawingml.x2006.chart.CTNumData;
 import org.openxmlformats.schemas.drawingml.x2006.chart.CTNumRef;
-import org.openxmlformats.schemas.drawingml.x2006.chart.CTNumVal;
 import org.openxmlformats.schemas.drawingml.x2006.chart.CTPieSer;
 import org.openxmlformats.schemas.drawingml.x2006.chart.CTPlotArea;
 import org.openxmlformats.schemas.drawingml.x2006.chart.CTScatterChart;
 import org.openxmlformats.schemas.drawingml.x2006.chart.CTScatterSer;
 import org.openxmlformats.schemas.drawingml.x2006.chart.CTStrData;
 import org.openxmlformats.schemas.drawingml.x2006.chart.CTStrRef;
-import org.openxmlformats.schemas.drawingml.x2006.chart.CTStrVal;
 import org.openxmlformats.schemas.drawingml.x2006.chart.CTUnsignedInt;
 import org.openxmlformats.schemas.drawingml.x2006.main.CTGradientFillProperties;
 import org.openxmlformats.schemas.drawingml.x2006.main.CTGradientStop;
@@ -108,7 +114,6 @@ import org.openxmlformats.schemas.drawingml.x2006.main.CTLineProperties;
 import org.openxmlformats.schemas.drawingml.x2006.main.CTSRgbColor;
 import org.openxmlformats.schemas.drawingml.x2006.main.CTShapeProperties;
 import org.openxmlformats.schemas.drawingml.x2006.main.CTSolidColorFillProperties;
-import org.openxmlformats.schemas.drawingml.x2006.main.CTTextNormalAutofit;
 import org.openxmlformats.schemas.presentationml.x2006.main.CTBuildList;
 import org.openxmlformats.schemas.presentationml.x2006.main.CTShape;
 import org.openxmlformats.schemas.presentationml.x2006.main.CTSlide;
@@ -142,6 +147,26 @@ import static org.apache.poi.ooxml.POIXMLTypeLoader.DEFAULT_XML_OPTIONS;
  */
 public class PowerPointServiceImpl implements PowerPointService {
 
+    /** Number of rows of a date graph's embedded workbook to keep in memory while writing it. */
+    private static final int DATEGRAPH_ROW_WINDOW = 100;
+
+    // Layout of each document in a list.
+    /** How much space to leave at the left and right edge of the slide. */
+    private static final double LIST_X_MARGIN = 20;
+    /** How much space to leave at the top. */
+    private static final double LIST_Y_MARGIN = 5;
+    /** Size of the icon. */
+    private static final double LIST_ICON_WIDTH = 20, LIST_ICON_HEIGHT = 24;
+    /** Find's thumbnail height is 97px by 55px, hardcoded in the CSS in .document-thumbnail; we draw it at 80%. */
+    private static final double LIST_THUMB_W = 97 * 0.8, LIST_THUMB_H = 55 * 0.8;
+    /** Margin around the thumbnail. */
+    private static final double LIST_THUMB_MARGIN = 4.;
+    /** Space between list items. */
+    private static final double LIST_ITEM_MARGIN = 5.;
+
+    /** Matches highlighted text in a document summary. */
+    private static final Pattern HIGHLIGHT_PATTERN = Pattern.compile("<HavenSearch-QueryText-Placeholder>(.*?)</HavenSearch-QueryText-Placeholder>");
+
     /** The source for the template file. */
     private final TemplateSource pptxTemplate;
 
@@ -151,6 +176,12 @@ public class PowerPointServiceImpl implements PowerPointService {
     /** The image source for converting image identifiers to image data. */
     private final ImageSource imageSource;
 
+    /** Threads shared by all of this service's renders for prefetching images, see {@link ImagePrefetcher}. */
+    private final ExecutorService imagePrefetchExecutor = WorkerPools.unbounded(ThreadFactories.forBlockingIo("pptx-image-prefetch-"));
+
+    /** Threads shared by all of this service's renders for laying out report children, see {@link #report}. */
+    private final ExecutorService reportExecutor = WorkerPools.bounded(Runtime.getRuntime().availableProcessors(), ThreadFactories.daemon("pptx-report-"));
+
     /**
      * Constructor for the PowerPointServiceImpl, allowing you to provide your own template and settings.
      * @param pptxTemplate what template .pptx file to use.
@@ -192,14 +223,28 @@ public class PowerPointServiceImpl implements PowerPointService {
      * @throws TemplateLoadException if any errors occurred.
      */
     private SlideShowTemplate loadTemplate() throws TemplateLoadException {
-        try(InputStream inputStream = pptxTemplate.getInputStream()) {
-            return new SlideShowTemplate(inputStream);
+        if (pptxTemplate instanceof CachingTemplateSource) {
+            // The template has already been parsed and validated, so we just need a working copy.
+            return ((CachingTemplateSource) pptxTemplate).getPrototype().newSlideShowTemplate();
         }
-        catch(IOException e) {
-            throw new TemplateLoadException("Error while loading template", e);
+
+        return SlideShowTemplate.load(pptxTemplate);
+    }
+
+    /**
+     * Removes any media, chart and embedded workbook parts which nothing refers to any more, so they aren't written
+     *   out with the presentation.
+     * @param ppt the rendered presentation.
+     * @return the presentation, for convenience.
+     * @throws TemplateLoadException if the package's relationships can't be read.
+     */
+    private static XMLSlideShow removeOrphanParts(final XMLSlideShow ppt) throws TemplateLoadException {
+        try {
+            OrphanParts.remove(ppt.getPackage());
+            return ppt;
         }
-        catch(NotOfficeXmlFileException|POIXMLException e) {
-            throw new TemplateLoadException("File is not a valid Office PowerPoint file", e);
+        catch(InvalidFormatException e) {
+            throw new TemplateLoadException("Error removing unused parts from presentation", e);
         }
     }
 
@@ -234,64 +279,45 @@ public class PowerPointServiceImpl implements PowerPointService {
         final XMLSlideShow ppt = loadTemplate().getSlideShow();
         final XSLFSlide slide = ppt.createSlide();
 
-        addTopicMap(slide, createPageAnchor(ppt), topicmap);
+        final Rectangle2D.Double anchor = createPageAnchor(ppt);
+        addTopicMap(slide, anchor, topicmap, layoutTopicMap(TextBoxStyle.ofFreeform(ppt), anchor, topicmap));
 
-        return ppt;
+        return removeOrphanParts(ppt);
     }
 
     /**
-     * Internal implementation to add a topic map to a slide.
-     * @param slide the slide to add to.
+     * Internal implementation to work out how much each topic map path's text should be shrunk by to fit inside it,
+     *   without creating any shapes; so it's safe to call from worker threads.
+     * @param freeformStyle the presentation's freeform shape settings.
      * @param anchor bounding rectangle to draw onto, in PowerPoint coordinates.
      * @param data the topic map data.
+     * @return the font scale for each path, as per CTTextNormalAutofit.setFontScale().
      */
-    private static void addTopicMap(final XSLFSlide slide, final Rectangle2D.Double anchor, final TopicMapData data) {
-        for(final TopicMapData.Path reqPath : data.getPaths()) {
-            final XSLFFreeformShape shape = slide.createFreeform();
-            final Path2D.Double path = new Path2D.Double();
-
-            boolean first = true;
-
-            for(double[] point : reqPath.getPoints()) {
-                final double x = point[0] * anchor.getWidth() + anchor.getMinX();
-                final double y = point[1] * anchor.getHeight() + anchor.getMinY();
-                if(first) {
-                    path.moveTo(x, y);
-                    first = false;
-                }
-                else {
-                    path.lineTo(x, y);
-                }
-            }
-            path.closePath();
-
-            shape.setPath(path);
-            shape.setStrokeStyle(2);
-            shape.setLineColor(Color.GRAY);
-            shape.setHorizontalCentered(true);
-            shape.setVerticalAlignment(VerticalAlignment.MIDDLE);
-            shape.setTextAutofit(TextShape.TextAutofit.NORMAL);
+    private static int[] layoutTopicMap(final TextBoxStyle freeformStyle, final Rectangle2D.Double anchor, final TopicMapData data) {
+        final TopicMapData.Path[] paths = data.getPaths();
+        final int[] fontScales = new int[paths.length];
 
-            final XSLFTextParagraph text = shape.addNewTextParagraph();
-            final XSLFTextRun textRun = text.addNewTextRun();
-            textRun.setText(reqPath.name);
-            textRun.setFontColor(Color.WHITE);
-            textRun.setBold(true);
-
-            final CTShape cs = (CTShape) shape.getXmlObject();
+        for(int pathIdx = 0; pathIdx < paths.length; ++pathIdx) {
+            final TopicMapData.Path reqPath = paths[pathIdx];
+            final Rectangle2D bounds = createTopicMapPath(anchor, reqPath).getBounds2D();
 
             double max = 100, min = 1, scale = 100;
-            final CTTextNormalAutofit autoFit = cs.getTxBody().getBodyPr().getNormAutofit();
-            final double availHeight = path.getBounds2D().getHeight();
+            final double availHeight = bounds.getHeight();
+            // The shape's anchor is stored in EMUs, so round the width the same way it would be.
+            final double textWidth = freeformStyle.getTextWidth(Units.toPoints(Units.toEMU(bounds.getWidth())));
             final int RESIZE_ATTEMPTS = 7;
 
             for (int attempts = 0; attempts < RESIZE_ATTEMPTS; ++attempts) {
                 // PowerPoint doesn't resize the text till you edit it once, which means the text initially looks too
                 //   large when you first view the slide; so we binary-chop to get a sensible initial approximation.
                 // OpenOffice does the text resize on load so it doesn't have this problem.
-                autoFit.setFontScale(Math.max(1, (int)(scale * 1000)));
+                final int fontScale = Math.max(1, (int)(scale * 1000));
+                fontScales[pathIdx] = fontScale;
 
-                final double textHeight = shape.getTextHeight();
+                final TextMeasurer.Paragraph measured = new TextMeasurer.Paragraph(freeformStyle.getParagraphStyle());
+                measured.addRun(reqPath.name, freeformStyle.getFontFamily(), freeformStyle.getFontSize() * fontScale / 100000., true, false);
+
+                final double textHeight = TextMeasurer.getTextHeight(textWidth, measured);
                 if (textHeight < availHeight) {
                     min = scale;
                     scale = 0.5 * (min + max);
@@ -304,6 +330,67 @@ public class PowerPointServiceImpl implements PowerPointService {
                     break;
                 }
             }
+        }
+
+        return fontScales;
+    }
+
+    /**
+     * Utility function to create the outline of a topic map path.
+     * @param anchor bounding rectangle to draw onto, in PowerPoint coordinates.
+     * @param reqPath the topic map path.
+     * @return the outline, in PowerPoint coordinates.
+     */
+    private static Path2D.Double createTopicMapPath(final Rectangle2D.Double anchor, final TopicMapData.Path reqPath) {
+        final Path2D.Double path = new Path2D.Double();
+
+        boolean first = true;
+
+        for(double[] point : reqPath.getPoints()) {
+            final double x = point[0] * anchor.getWidth() + anchor.getMinX();
+            final double y = point[1] * anchor.getHeight() + anchor.getMinY();
+            if(first) {
+                path.moveTo(x, y);
+                first = false;
+            }
+            else {
+                path.lineTo(x, y);
+            }
+        }
+        path.closePath();
+
+        return path;
+    }
+
+    /**
+     * Internal implementation to add a topic map to a slide.
+     * @param slide the slide to add to.
+     * @param anchor bounding rectangle to draw onto, in PowerPoint coordinates.
+     * @param data the topic map data.
+     * @param fontScales the font scale for each path, from {@link #layoutTopicMap}.
+     */
+    private static void addTopicMap(final XSLFSlide slide, final Rectangle2D.Double anchor, final TopicMapData data, final int[] fontScales) {
+        final TopicMapData.Path[] paths = data.getPaths();
+
+        for(int pathIdx = 0; pathIdx < paths.length; ++pathIdx) {
+            final TopicMapData.Path reqPath = paths[pathIdx];
+            final XSLFFreeformShape shape = slide.createFreeform();
+
+            shape.setPath(createTopicMapPath(anchor, reqPath));
+            shape.setStrokeStyle(2);
+            shape.setLineColor(Color.GRAY);
+            shape.setHorizontalCentered(true);
+            shape.setVerticalAlignment(VerticalAlignment.MIDDLE);
+            shape.setTextAutofit(TextShape.TextAutofit.NORMAL);
+
+            final XSLFTextParagraph text = shape.addNewTextParagraph();
+            final XSLFTextRun textRun = text.addNewTextRun();
+            textRun.setText(reqPath.name);
+            textRun.setFontColor(Color.WHITE);
+            textRun.setBold(true);
+
+            final CTShape cs = (CTShape) shape.getXmlObject();
+            cs.getTxBody().getBodyPr().getNormAutofit().setFontScale(fontScales[pathIdx]);
 
             final int opacity = (int) (100000 * reqPath.getOpacity());
             final Color c1 = Color.decode(reqPath.getColor());
@@ -437,37 +524,43 @@ public class PowerPointServiceImpl implements PowerPointService {
         final XMLSlideShow ppt = template.getSlideShow();
         final XSLFSlide slide = ppt.createSlide();
 
-        final int shapeId = 1;
+        addSunburst(template, new PartNameAllocator(ppt.getPackage()), slide, null, sunburst);
+        ChartFrames.reloadShapes(slide);
 
-        addSunburst(template, slide, null, sunburst, shapeId, "relId" + shapeId);
-
-        return ppt;
+        return removeOrphanParts(ppt);
     }
 
     /**
      * Internal implementation to add a sunburst chart (actually a doughnut chart) to a slide, based on a template.
      * @param template the parsed template information.
+     * @param partNames the part name allocator for the presentation.
      * @param slide the slide to add to.
      * @param anchor optional bounding rectangle to draw onto, in PowerPoint coordinates.
      *               If null, we'll use the bounds from the original template chart.
      * @param data the sunburst data.
-     * @param shapeId the slide shape ID, should be unique within the slide.
-     * @param relId the relation ID to the chart data.
      * @throws TemplateLoadException if we can't create the sunburst; most likely due to an invalid template.
      */
-    private static void addSunburst(final SlideShowTemplate template, final XSLFSlide slide, final Rectangle2D.Double anchor, final SunburstData data, final int shapeId, final String relId) throws TemplateLoadException {
+    private static void addSunburst(final SlideShowTemplate template, final PartNameAllocator partNames, final XSLFSlide slide, final Rectangle2D.Double anchor, final SunburstData data) throws TemplateLoadException {
+        addChart(template, partNames, null, slide, anchor, prepareSunburst(template.getDoughnutChart(), data));
+    }
+
+    /**
+     * Internal implementation to build a sunburst chart's XML and workbook, based on a template. This doesn't touch
+     *   the presentation, so it's safe to call concurrently.
+     * @param baseChart the doughnut chart from the template.
+     * @param data the sunburst data.
+     * @return the serialized chart.
+     * @throws TemplateLoadException if we can't create the sunburst; most likely due to an invalid template.
+     */
+    private static PreparedChart prepareSunburst(final TemplateChart baseChart, final SunburstData data) throws TemplateLoadException {
         final String[] categories = data.getCategories();
         final double[] values = data.getValues();
         final String title = data.getTitle();
 
-        slide.getXmlObject().getCSld().getSpTree().addNewGraphicFrame().set(template.getDoughnutChartShapeXML(relId, shapeId, "chart" + shapeId, anchor));
-
         final XSSFWorkbook workbook = new XSSFWorkbook();
         final XSSFSheet sheet = workbook.createSheet();
 
-        final XSLFChart baseChart = template.getDoughnutChart();
-
-        final CTChartSpace chartSpace = (CTChartSpace) baseChart.getCTChartSpace().copy();
+        final CTChartSpace chartSpace = (CTChartSpace) baseChart.getChartSpace().copy();
         final CTChart ctChart = chartSpace.getChart();
         final CTPlotArea plotArea = ctChart.getPlotArea();
 
@@ -516,8 +609,9 @@ public class PowerPointServiceImpl implements PowerPointService {
             }
         }
 
-        categoryData.setPtArray(null);
-        numericData.setPtArray(null);
+        final ChartXmlWriter chartWriter = new ChartXmlWriter();
+        chartWriter.setStrCache(categoryData, values.length, idx -> categories[idx]);
+        chartWriter.setNumCache(numericData, values.length, idx -> values[idx]);
 
         CTLegend legend = null;
         final int[] showInLegend = data.getShowInLegend();
@@ -531,14 +625,6 @@ public class PowerPointServiceImpl implements PowerPointService {
         }
 
         for(int idx = 0; idx < values.length; ++idx) {
-            final CTStrVal categoryPoint = categoryData.addNewPt();
-            categoryPoint.setIdx(idx);
-            categoryPoint.setV(categories[idx]);
-
-            final CTNumVal numericPoint = numericData.addNewPt();
-            numericPoint.setIdx(idx);
-            numericPoint.setV(Double.toString(values[idx]));
-
             if (overrideColors) {
                 final CTDPt copiedPt = (CTDPt) templatePt.copy();
                 copiedPt.getIdx().setVal(idx);
@@ -597,16 +683,13 @@ public class PowerPointServiceImpl implements PowerPointService {
             row.createCell(0).setCellValue(categories[idx]);
             row.createCell(1).setCellValue(values[idx]);
         }
-        categoryData.getPtCount().setVal(categories.length);
-        numericData.getPtCount().setVal(values.length);
-
         categoryRef.setF(new CellRangeAddress(1, values.length, 0, 0).formatAsString(sheet.getSheetName(), true));
         numRef.setF(new CellRangeAddress(1, values.length, 1, 1).formatAsString(sheet.getSheetName(), true));
 
         try {
-            writeChart(template.getSlideShow(), slide, baseChart, chartSpace, workbook, relId);
+            return prepareChart(baseChart, chartSpace, chartWriter, workbook);
         }
-        catch(IOException|InvalidFormatException e) {
+        catch(IOException e) {
             throw new TemplateLoadException("Error writing chart in loaded template", e);
         }
     }
@@ -674,7 +757,7 @@ public class PowerPointServiceImpl implements PowerPointService {
 
         addTable(sl, remainingSpace(pageAnchor, textHeight), rows, cols, data, false);
 
-        return ppt;
+        return removeOrphanParts(ppt);
     }
 
     /**
@@ -800,40 +883,75 @@ public class PowerPointServiceImpl implements PowerPointService {
             textHeight = 0;
         }
 
-        final XSLFPictureData picture = addPictureData(imageSource, ppt, image);
-        addMap(sl, remainingSpace(pageAnchor, textHeight), picture, map.getMarkers(), map.getPolygons());
+        final Rectangle2D.Double mapAnchor = remainingSpace(pageAnchor, textHeight);
+        addMap(sl, new PictureRegistry(ppt), mapAnchor, image, getImageData(imageSource, createResampler(), image, mapAnchor), map.getMarkers(), map.getPolygons());
 
-        return ppt;
+        return removeOrphanParts(ppt);
     }
 
     /**
-     * Utility function to add image data to a PowerPoint presentation.
+     * Utility function to get image data, shrinking it first if it's much larger than the space it'll be drawn in.
      * @param imageSource the image source.
-     * @param ppt the presentation to add to.
+     * @param resampler the resampler to shrink images with, or null if images should be embedded as they are.
      * @param imageId the image identifier, typically a URI.
-     * @return the picture data.
+     * @param bounds the largest area the image will be drawn in, in PowerPoint coordinates.
+     * @return the image data.
      */
-    private static XSLFPictureData addPictureData(final ImageSource imageSource, final XMLSlideShow ppt, final String imageId) {
+    private static ImageData getImageData(final ImageSource imageSource, final ImageResampler resampler, final String imageId, final Rectangle2D bounds) {
         final ImageData imageData = imageSource.getImageData(imageId);
-        return ppt.addPicture(imageData.getData(), imageData.getType());
+
+        return resampler == null ? imageData : resampler.resample(imageData, bounds.getWidth(), bounds.getHeight());
+    }
+
+    /**
+     * Creates an image resampler for a single presentation, as controlled by the template settings.
+     * @return the image resampler, or null if images should be embedded as they are.
+     */
+    private ImageResampler createResampler() {
+        final TemplateSettings settings = pptxSettings.getSettings();
+        return settings.getImageResampleDpi() > 0
+                ? new ImageResampler(settings.getImageResampleDpi(), settings.getImageResampleQuality())
+                : null;
+    }
+
+    /**
+     * Reduces the number of points in a date graph, as controlled by the template settings.
+     * @param data the date graph data.
+     * @return the downsampled data, or the original data if it doesn't need downsampling.
+     */
+    private DategraphData downsample(final DategraphData data) {
+        return DategraphDownsampler.downsample(data, pptxSettings.getSettings().getDategraphMaxPoints());
     }
 
     /**
      * Internal implementation to add an image (a world map, though other image data is also fine) to a slide.
      *   Preserves the original image's aspect ratio, leaving blank space below and to the sides of the image.
      * @param slide the slide to add to.
+     * @param pictures the picture registry for the presentation.
      * @param anchor bounding rectangle to draw onto, in PowerPoint coordinates.
-     * @param picture the picture data.
+     * @param imageId the image identifier.
+     * @param image the image data.
      * @param markers an array of markers to draw over the map.
      * @param polygons
      * @return the picture shape object added to the slide.
      */
-    private static XSLFPictureShape addMap(final XSLFSlide slide, final Rectangle2D.Double anchor, final XSLFPictureData picture, final Marker[] markers, final MapData.Polygon[] polygons) {
+    private static XSLFPictureShape addMap(final XSLFSlide slide, final PictureRegistry pictures, final Rectangle2D.Double anchor, final String imageId, final ImageData image, final Marker[] markers, final MapData.Polygon[] polygons) {
         double tgtW = anchor.getWidth(),
                tgtH = anchor.getHeight();
 
-        final Dimension size = picture.getImageDimension();
-        final double ratio = size.getWidth() / size.getHeight();
+        final XSLFPictureData picture = pictures.add(imageId, image);
+
+        // Take the aspect ratio from the image header if we can. Note POI's createPicture() below still decodes the
+        //   image to give the new shape its natural size before we set the anchor, and there's no public way to create
+        //   a picture without that; it's only done once per distinct picture, and on the resampled image if enabled.
+        final double ratio;
+        if (image.hasDimensions()) {
+            ratio = (double) image.getWidth() / image.getHeight();
+        }
+        else {
+            final Dimension size = picture.getImageDimension();
+            ratio = size.getWidth() / size.getHeight();
+        }
 
         if(ratio > tgtW / tgtH) {
             // source image is wider than target, clip fixed width variable height
@@ -1010,214 +1128,373 @@ public class PowerPointServiceImpl implements PowerPointService {
 
     @Override
     public XMLSlideShow list(final ListData documentList, final String results, final String sortBy) throws TemplateLoadException {
+        return renderList(documentList, results, sortBy, slide -> {});
+    }
+
+    /**
+     * Writes each slide to the output stream as soon as it's finished, rather than once the whole list is drawn.
+     */
+    @Override
+    public void list(final ListData documentList, final String results, final String sortBy, final OutputStream outputStream) throws TemplateLoadException, IOException {
+        final StreamingSlideWriter writer = new StreamingSlideWriter(outputStream);
+
+        try(XMLSlideShow ppt = renderList(documentList, results, sortBy, writer::writeSlide)) {
+            writer.finish(ppt);
+        }
+    }
+
+    /**
+     * Renders a list of documents.
+     * @param documentList the data containing all the documents
+     * @param results an optional string which will be shown in the top-left.
+     * @param sortBy an optional string which will be shown in the top-right.
+     * @param finishedSlides called with each slide once nothing else will be added to it.
+     * @return the presentation.
+     * @throws TemplateLoadException if the template is invalid.
+     */
+    private XMLSlideShow renderList(final ListData documentList, final String results, final String sortBy, final Consumer<XSLFSlide> finishedSlides) throws TemplateLoadException {
         final XMLSlideShow ppt = loadTemplate().getSlideShow();
 
-        addList(imageSource, ppt, null, createPageAnchor(ppt), true, documentList, results, sortBy);
+        final List<String> thumbnails = new ArrayList<>();
+        addThumbnailIds(thumbnails, documentList);
 
-        return ppt;
+        final Rectangle2D.Double anchor = createPageAnchor(ppt);
+        final ListLayout layout = layoutList(prefetchImages(thumbnails), createResampler(), TextBoxStyle.of(ppt), anchor, true, false, documentList, results, sortBy);
+        drawList(ppt, new PictureRegistry(ppt), null, anchor, documentList, results, sortBy, layout, finishedSlides);
+
+        return removeOrphanParts(ppt);
+    }
+
+    /**
+     * Utility function to collect the thumbnail identifiers from a list of documents.
+     * @param imageIds the list to add to.
+     * @param documentList the documents.
+     */
+    private static void addThumbnailIds(final List<String> imageIds, final ListData documentList) {
+        for(final Document doc : documentList.getDocs()) {
+            imageIds.add(doc.getThumbnail());
+        }
     }
 
     /**
-     * Internal implementation to add a list of documents to a presentation; either as a single slide or a series of slides.
+     * Fetches a batch of images concurrently, as controlled by the template settings.
+     * @param imageIds the image identifiers to fetch; may contain duplicates and blanks.
+     * @return an image source which serves the prefetched images.
+     */
+    private ImageSource prefetchImages(final List<String> imageIds) {
+        final TemplateSettings settings = pptxSettings.getSettings();
+        return ImagePrefetcher.prefetch(imagePrefetchExecutor, imageSource, imageIds, settings.getImagePrefetchThreads(), settings.getImagePrefetchTimeoutMillis(), settings.isImagePrefetchOffHeap());
+    }
+
+    /**
+     * Internal implementation to measure a list of documents and assign each document to a page, without creating any
+     *   shapes; so we never have to remove shapes for documents which turn out not to fit. This doesn't touch the
+     *   presentation, so it's safe to call from worker threads.
      * @param imageSource the image source to convert images to data.
-     * @param ppt the presentation to add to.
-     * @param sl the slide to add to (can be null if pagination is enabled).
+     * @param resampler the resampler to shrink thumbnails with, or null if they should be embedded as they are.
+     * @param textBoxStyle the presentation's text box settings.
      * @param anchor bounding rectangle to draw onto, in PowerPoint coordinates.
      * @param paginate whether to render results as multiple slides if they don't fit on one slide.
+     * @param onExistingSlide whether the first page will be drawn on an existing slide, which doesn't get the headers.
      * @param data the documents to render.
      * @param results optional string to render into the top-left corner of the available space.
-     *                  Will appear on each page if pagination is enabled.
      * @param sortBy optional string to render into the top-right corner of the available space.
-     *                  Will appear on each page if pagination is enabled.
+     * @return the list layout.
      */
-    private static void addList(final ImageSource imageSource, final XMLSlideShow ppt, XSLFSlide sl, final Rectangle2D.Double anchor, final boolean paginate, final ListData data, final String results, final String sortBy) {
-        final double
-                // How much space to leave at the left and right edge of the slide
-                xMargin = 20,
-                // How much space to leave at the top
-                yMargin = 5,
-                // Size of the icon
-                iconWidth = 20, iconHeight = 24,
-                // Find's thumbnail height is 97px by 55px, hardcoded in the CSS in .document-thumbnail
-                thumbScale = 0.8,
-                thumbW = 97 * thumbScale, thumbH = 55 * thumbScale,
-                // Margin around the thumbnail
-                thumbMargin = 4.,
-                // Space between list items
-                listItemMargin = 5.;
-
-        final Pattern highlightPattern = Pattern.compile("<HavenSearch-QueryText-Placeholder>(.*?)</HavenSearch-QueryText-Placeholder>");
-
-        double yCursor = yMargin + anchor.getMinY(), xCursor = xMargin + anchor.getMinX();
-
-        int docsOnPage = 0;
+    private static ListLayout layoutList(final ImageSource imageSource, final ImageResampler resampler, final TextBoxStyle textBoxStyle, final Rectangle2D.Double anchor, final boolean paginate, final boolean onExistingSlide, final ListData data, final String results, final String sortBy) {
+        final TextMeasurer.ParagraphStyle paragraphStyle = textBoxStyle.getParagraphStyle();
+        final String fontFamily = textBoxStyle.getFontFamily();
+
+        final double headerX = LIST_X_MARGIN + anchor.getMinX(),
+                headerWidth = Math.max(0, anchor.getMaxX() - headerX - LIST_X_MARGIN),
+                listX = headerX + (data.isDrawIcons() ? LIST_ICON_WIDTH : 0),
+                listWidth = Math.max(0, anchor.getMaxX() - listX - LIST_X_MARGIN),
+                textWidth = textBoxStyle.getTextWidth(listWidth);
+
+        // If there is enough horizontal space, put the text summary to the right of the thumbnail image,
+        //    otherwise put it under the thumbnail,
+        final boolean thumbBesideText = listWidth > 2.5 * LIST_THUMB_W;
+
+        double headerHeight = 0;
+
+        for(final String header : new String[]{ results, sortBy }) {
+            if (StringUtils.isNotBlank(header)) {
+                final TextMeasurer.Paragraph measuredHeader = new TextMeasurer.Paragraph(paragraphStyle);
+                measuredHeader.addRun(header, fontFamily, 12., false, false);
+                headerHeight = Math.max(headerHeight, TextMeasurer.getTextHeight(textBoxStyle.getTextWidth(headerWidth), measuredHeader));
+            }
+        }
+
+        // Headers are only drawn on the slides we create.
+        final double pageTop = LIST_Y_MARGIN + anchor.getMinY() + (headerHeight > 0 ? LIST_ITEM_MARGIN + headerHeight : 0);
 
         final Document[] docs = data.getDocs();
+        final ListItemLayout[] items = new ListItemLayout[docs.length];
+        final List<List<ListItemLayout>> pages = new ArrayList<>();
+
+        List<ListItemLayout> page = null;
+        double yCursor = 0;
+
         for(int docIdx = 0; docIdx < docs.length; ++docIdx) {
-            final Document doc = docs[docIdx];
+            if (page == null) {
+                yCursor = pages.isEmpty() && onExistingSlide ? LIST_Y_MARGIN + anchor.getMinY() : pageTop;
+                page = new ArrayList<>();
+                pages.add(page);
+            }
+
+            if (items[docIdx] == null) {
+                items[docIdx] = layoutListItem(imageSource, resampler, docs[docIdx], data, paragraphStyle, fontFamily, textWidth, thumbBesideText);
+            }
+
+            final ListItemLayout item = items[docIdx];
+            item.y = yCursor;
+            yCursor += item.height;
+
+            if (yCursor > anchor.getMaxY()) {
+                if (page.isEmpty()) {
+                    // The element doesn't fit even on a page by itself, so draw it anyway.
+                    page.add(item);
+                }
+                else {
+                    // We exceeded the available space, so draw the element on the next page instead.
+                    --docIdx;
+                }
+
+                page = null;
+
+                if (!paginate) {
+                    break;
+                }
+            }
+            else {
+                yCursor += LIST_ITEM_MARGIN;
+                page.add(item);
+            }
+        }
+
+        return new ListLayout(headerX, headerWidth, listX, listWidth, thumbBesideText, pages);
+    }
 
-            if(sl == null) {
-                sl = ppt.createSlide();
-                yCursor = yMargin + anchor.getMinY();
-                xCursor = xMargin + anchor.getMinX();
-                docsOnPage = 0;
+    /**
+     * Internal implementation to add a measured list of documents to a presentation; either as a single slide or a
+     *   series of slides. The number of pages is already known, so each slide's shapes are created exactly once.
+     * @param ppt the presentation to add to.
+     * @param pictures the picture registry for the presentation.
+     * @param sl the slide to draw the first page on, or null to create a slide for each page.
+     * @param anchor bounding rectangle to draw onto, in PowerPoint coordinates.
+     * @param data the documents to render.
+     * @param results optional string to render into the top-left corner of the available space.
+     *                  Will appear on each slide we create.
+     * @param sortBy optional string to render into the top-right corner of the available space.
+     *                  Will appear on each slide we create.
+     * @param layout the list layout, from {@link #layoutList}.
+     * @param finishedSlides called with each slide this creates, once it has been drawn.
+     */
+    private static void drawList(final XMLSlideShow ppt, final PictureRegistry pictures, final XSLFSlide sl, final Rectangle2D.Double anchor, final ListData data, final String results, final String sortBy, final ListLayout layout, final Consumer<XSLFSlide> finishedSlides) {
+        final List<List<ListItemLayout>> pages = layout.pages;
+
+        for(int pageIdx = 0; pageIdx < pages.size(); ++pageIdx) {
+            final XSLFSlide slide;
+
+            if (pageIdx == 0 && sl != null) {
+                slide = sl;
+            }
+            else {
+                slide = ppt.createSlide();
 
-                double yStep = 0;
+                final Rectangle2D.Double headerBounds = new Rectangle2D.Double(layout.headerX, LIST_Y_MARGIN + anchor.getMinY(), layout.headerWidth, 20);
 
                 if (StringUtils.isNotBlank(results)) {
-                    final XSLFTextBox textBox = sl.createTextBox();
+                    final XSLFTextBox textBox = slide.createTextBox();
                     textBox.clearText();
-                    final Rectangle2D.Double textBounds = new Rectangle2D.Double(xCursor, yCursor, Math.max(0, anchor.getMaxX() - xCursor - xMargin), 20);
-                    textBox.setAnchor(textBounds);
+                    textBox.setAnchor(headerBounds);
 
                     addTextRun(textBox.addNewTextParagraph(), results, 12., Color.LIGHT_GRAY);
-
-                    yStep = textBox.getTextHeight();
                 }
 
                 if (StringUtils.isNotBlank(sortBy)) {
-                    final XSLFTextBox sortByEl = sl.createTextBox();
+                    final XSLFTextBox sortByEl = slide.createTextBox();
                     sortByEl.clearText();
                     final XSLFTextParagraph sortByText = sortByEl.addNewTextParagraph();
                     sortByText.setTextAlign(TextParagraph.TextAlign.RIGHT);
 
                     addTextRun(sortByText, sortBy, 12., Color.LIGHT_GRAY);
 
-                    sortByEl.setAnchor(new Rectangle2D.Double(xCursor, yCursor, Math.max(0, anchor.getMaxX() - xCursor - xMargin), 20));
-
-                    yStep = Math.max(sortByEl.getTextHeight(), yStep);
-                }
-
-                if (yStep > 0) {
-                    yCursor += listItemMargin + yStep;
+                    sortByEl.setAnchor(headerBounds);
                 }
             }
 
-            XSLFAutoShape icon = null;
-            if (data.isDrawIcons()) {
-                icon = sl.createAutoShape();
-                icon.setShapeType(ShapeType.SNIP_1_RECT);
-                icon.setAnchor(new Rectangle2D.Double(xCursor, yCursor + listItemMargin, iconWidth, iconHeight));
-                icon.setLineColor(Color.decode("#888888"));
-                icon.setLineWidth(2.0);
-
-                xCursor += iconWidth;
-            }
-
-            final XSLFTextBox listEl = sl.createTextBox();
-            listEl.clearText();
-            listEl.setAnchor(new Rectangle2D.Double(xCursor, yCursor, Math.max(0, anchor.getMaxX() - xCursor - xMargin), Math.max(0, anchor.getMaxY() - yCursor)));
-
-            final XSLFTextParagraph titlePara = listEl.addNewTextParagraph();
-            addTextRun(titlePara, doc.getTitle(), data.getTitleFontSize(), Color.BLACK).setBold(true);
+            for(final ListItemLayout item : pages.get(pageIdx)) {
+                final Document doc = item.doc;
 
-            if (StringUtils.isNotBlank(doc.getDate())) {
-                final XSLFTextParagraph datePara = listEl.addNewTextParagraph();
-                datePara.setLeftMargin(5.);
-                addTextRun(datePara, doc.getDate(), data.getDateFontSize(), Color.GRAY).setItalic(true);
-            }
+                if (data.isDrawIcons()) {
+                    final XSLFAutoShape icon = slide.createAutoShape();
+                    icon.setShapeType(ShapeType.SNIP_1_RECT);
+                    icon.setAnchor(new Rectangle2D.Double(layout.headerX, item.y + LIST_ITEM_MARGIN, LIST_ICON_WIDTH, LIST_ICON_HEIGHT));
+                    icon.setLineColor(Color.decode("#888888"));
+                    icon.setLineWidth(2.0);
+                }
 
-            if (StringUtils.isNotBlank(doc.getRef())) {
-                addTextRun(listEl.addNewTextParagraph(), doc.getRef(), data.getRefFontSize(), Color.GRAY);
-            }
+                final XSLFTextBox listEl = slide.createTextBox();
+                listEl.clearText();
+                listEl.setAnchor(new Rectangle2D.Double(layout.listX, item.y, layout.listWidth, Math.max(0, anchor.getMaxY() - item.y)));
 
-            final double thumbnailOffset = listEl.getTextHeight();
+                addTextRun(listEl.addNewTextParagraph(), doc.getTitle(), data.getTitleFontSize(), Color.BLACK).setBold(true);
 
-            final XSLFTextParagraph contentPara = listEl.addNewTextParagraph();
+                if (StringUtils.isNotBlank(doc.getDate())) {
+                    final XSLFTextParagraph datePara = listEl.addNewTextParagraph();
+                    datePara.setLeftMargin(5.);
+                    addTextRun(datePara, doc.getDate(), data.getDateFontSize(), Color.GRAY).setItalic(true);
+                }
 
-            Rectangle2D.Double pictureAnchor = null;
-            XSLFPictureData pictureData = null;
+                if (StringUtils.isNotBlank(doc.getRef())) {
+                    addTextRun(listEl.addNewTextParagraph(), doc.getRef(), data.getRefFontSize(), Color.GRAY);
+                }
 
-            if (StringUtils.isNotBlank(doc.getThumbnail())) {
-                try {
-                    // Picture reuse is automatic
-                    pictureData = addPictureData(imageSource, ppt, doc.getThumbnail());
-                    // We reserve space for the picture, but we don't actually add it yet.
-                    // The reason is we may have to remove it later if it doesn't fit; but due to a quirk of OpenOffice,
-                    //   deleting the picture shape removes the pictureData as well; which is a problem since the
-                    //   pictureData can be shared between multiple pictures.
-                    pictureAnchor = new Rectangle2D.Double(xCursor, yCursor + thumbnailOffset + thumbMargin, thumbW, thumbH);
+                final XSLFTextParagraph contentPara = listEl.addNewTextParagraph();
 
-                    // If there is enough horizontal space, put the text summary to the right of the thumbnail image,
-                    //    otherwise put it under the thumbnail,
-                    if (listEl.getAnchor().getWidth() > 2.5 * thumbW) {
-                        contentPara.setLeftMargin(thumbW);
+                if (item.thumbnail != null) {
+                    if (layout.thumbBesideText) {
+                        contentPara.setLeftMargin(LIST_THUMB_W);
                     }
                     else {
-                        contentPara.addLineBreak().setFontSize(thumbH);
+                        contentPara.addLineBreak().setFontSize(LIST_THUMB_H);
                     }
-
-                }
-                catch(RuntimeException e) {
-                    // if there's any errors, we'll just ignore the image
                 }
-            }
 
-            final String rawSummary = doc.getSummary();
-            if (StringUtils.isNotBlank(rawSummary)) {
-                // HTML treats newlines and multiple whitespace as a single whitespace.
-                final String summary = rawSummary.replaceAll("\\s+", " ");
-                final Matcher matcher = highlightPattern.matcher(summary);
-                int idx = 0;
+                final String rawSummary = doc.getSummary();
+                if (StringUtils.isNotBlank(rawSummary)) {
+                    // HTML treats newlines and multiple whitespace as a single whitespace.
+                    final String summary = rawSummary.replaceAll("\\s+", " ");
+                    final Matcher matcher = HIGHLIGHT_PATTERN.matcher(summary);
+                    int idx = 0;
+
+                    while(matcher.find()) {
+                        final int start = matcher.start();
 
-                while(matcher.find()) {
-                    final int start = matcher.start();
+                        if (idx < start) {
+                            addTextRun(contentPara, summary.substring(idx, start), data.getSummaryFontSize(), Color.DARK_GRAY);
+                        }
 
-                    if (idx < start) {
-                        addTextRun(contentPara, summary.substring(idx, start), data.getSummaryFontSize(), Color.DARK_GRAY);
+                        addTextRun(contentPara, matcher.group(1), data.getSummaryFontSize(), Color.DARK_GRAY).setBold(true);
+                        idx = matcher.end();
                     }
 
-                    addTextRun(contentPara, matcher.group(1), data.getSummaryFontSize(), Color.DARK_GRAY).setBold(true);
-                    idx = matcher.end();
+                    if (idx < summary.length()) {
+                        addTextRun(contentPara, summary.substring(idx), data.getSummaryFontSize(), Color.DARK_GRAY);
+                    }
                 }
 
-                if (idx < summary.length()) {
-                    addTextRun(contentPara, summary.substring(idx), data.getSummaryFontSize(), Color.DARK_GRAY);
+                if (item.thumbnail != null) {
+                    try {
+                        final XSLFPictureData pictureData = pictures.add(item.doc.getThumbnail(), item.thumbnail);
+                        slide.createPicture(pictureData).setAnchor(new Rectangle2D.Double(layout.listX, item.y + item.thumbnailOffset + LIST_THUMB_MARGIN, LIST_THUMB_W, LIST_THUMB_H));
+                    }
+                    catch(RuntimeException e) {
+                        // if there's any errors, we'll just ignore the image
+                    }
                 }
             }
 
-            double elHeight = Math.max(listEl.getTextHeight(), iconHeight);
-            if (pictureAnchor != null) {
-                elHeight = Math.max(elHeight, pictureAnchor.getMaxY() - yCursor);
+            if (slide != sl) {
+                finishedSlides.accept(slide);
             }
+        }
+    }
+
+    /**
+     * Passes a report slide on once everything has been drawn on it.
+     * @param slide the finished slide.
+     * @param finishedSlides called with the slide.
+     */
+    private static void finishSlide(final XSLFSlide slide, final Consumer<XSLFSlide> finishedSlides) {
+        // Now the slide is finished, have POI list the charts as graphical object frames rather than tables.
+        ChartFrames.reloadShapes(slide);
+        finishedSlides.accept(slide);
+    }
 
-            yCursor += elHeight;
-            xCursor = xMargin + anchor.getMinX();
+    /**
+     * Measures a single document for a list, without creating any shapes; see {@link #layoutList}.
+     * The thumbnail is fetched (and resampled) here since whether we have one changes the layout, but it's only added
+     *   to the presentation once the element is drawn.
+     * @param imageSource the image source to convert images to data.
+     * @param resampler the resampler to shrink thumbnails with, or null if they should be embedded as they are.
+     * @param doc the document to measure.
+     * @param data the list the document belongs to, for the font sizes.
+     * @param paragraphStyle the resolved paragraph style of the list text box.
+     * @param fontFamily the resolved font family of the list text box.
+     * @param textWidth the width available for text in the list text box.
+     * @param thumbBesideText whether the summary goes to the right of the thumbnail, rather than under it.
+     * @return the measured layout.
+     */
+    private static ListItemLayout layoutListItem(final ImageSource imageSource, final ImageResampler resampler, final Document doc, final ListData data, final TextMeasurer.ParagraphStyle paragraphStyle, final String fontFamily, final double textWidth, final boolean thumbBesideText) {
+        final List<TextMeasurer.Paragraph> measured = new ArrayList<>();
 
-            docsOnPage++;
+        final TextMeasurer.Paragraph measuredTitle = new TextMeasurer.Paragraph(paragraphStyle);
+        measuredTitle.addRun(doc.getTitle(), fontFamily, data.getTitleFontSize(), true, false);
+        measured.add(measuredTitle);
 
-            if (yCursor > anchor.getMaxY()) {
-                if (docsOnPage > 1) {
-                    // If we drew more than one list element on this page; and we exceeded the available space,
-                    //   delete the last element's shapes and redraw it on the next page.
-                    // We don't have to remove the picture since we never added it.
-                    sl.removeShape(listEl);
-                    if (icon != null) {
-                        sl.removeShape(icon);
-                    }
+        if (StringUtils.isNotBlank(doc.getDate())) {
+            final TextMeasurer.Paragraph measuredDate = new TextMeasurer.Paragraph(paragraphStyle.withLeftMargin(5.));
+            measuredDate.addRun(doc.getDate(), fontFamily, data.getDateFontSize(), false, true);
+            measured.add(measuredDate);
+        }
 
-                    --docIdx;
-                }
-                else if(pictureAnchor != null) {
-                    // We've confirmed we need the picture, add it.
-                    sl.createPicture(pictureData).setAnchor(pictureAnchor);
-                }
+        if (StringUtils.isNotBlank(doc.getRef())) {
+            final TextMeasurer.Paragraph measuredRef = new TextMeasurer.Paragraph(paragraphStyle);
+            measuredRef.addRun(doc.getRef(), fontFamily, data.getRefFontSize(), false, false);
+            measured.add(measuredRef);
+        }
 
-                sl = null;
+        final double thumbnailOffset = TextMeasurer.getTextHeight(textWidth, measured);
 
-                if (!paginate) {
-                    break;
-                }
+        ImageData thumbnail = null;
+
+        if (StringUtils.isNotBlank(doc.getThumbnail())) {
+            try {
+                final ImageData imageData = imageSource.getImageData(doc.getThumbnail());
+                thumbnail = resampler == null ? imageData : resampler.resample(imageData, LIST_THUMB_W, LIST_THUMB_H);
             }
-            else {
-                yCursor += listItemMargin;
+            catch(RuntimeException e) {
+                // if there's any errors, we'll just ignore the image
+            }
+        }
+
+        final TextMeasurer.Paragraph measuredContent = new TextMeasurer.Paragraph(thumbnail != null && thumbBesideText ? paragraphStyle.withLeftMargin(LIST_THUMB_W) : paragraphStyle);
+        measured.add(measuredContent);
+
+        if (thumbnail != null && !thumbBesideText) {
+            measuredContent.addRun("\n", fontFamily, LIST_THUMB_H, false, false);
+        }
+
+        final String rawSummary = doc.getSummary();
+        if (StringUtils.isNotBlank(rawSummary)) {
+            final String summary = rawSummary.replaceAll("\\s+", " ");
+            final Matcher matcher = HIGHLIGHT_PATTERN.matcher(summary);
+            int idx = 0;
+
+            while(matcher.find()) {
+                final int start = matcher.start();
 
-                if(pictureAnchor != null) {
-                    // We've confirmed we need the picture, add it.
-                    sl.createPicture(pictureData).setAnchor(pictureAnchor);
+                if (idx < start) {
+                    measuredContent.addRun(summary.substring(idx, start), fontFamily, data.getSummaryFontSize(), false, false);
                 }
+
+                measuredContent.addRun(matcher.group(1), fontFamily, data.getSummaryFontSize(), true, false);
+                idx = matcher.end();
+            }
+
+            if (idx < summary.length()) {
+                measuredContent.addRun(summary.substring(idx), fontFamily, data.getSummaryFontSize(), false, false);
             }
         }
+
+        double height = Math.max(TextMeasurer.getTextHeight(textWidth, measured), LIST_ICON_HEIGHT);
+        if (thumbnail != null) {
+            height = Math.max(height, thumbnailOffset + LIST_THUMB_MARGIN + LIST_THUMB_H);
+        }
+
+        return new ListItemLayout(doc, thumbnail, thumbnailOffset, height);
     }
 
     /**
@@ -1242,26 +1519,37 @@ public class PowerPointServiceImpl implements PowerPointService {
     ) throws TemplateLoadException {
         final SlideShowTemplate template = loadTemplate();
         final XMLSlideShow ppt = template.getSlideShow();
-        final int shapeId = 1;
-        final String relId = "relId" + shapeId;
 
-        addDategraph(template, ppt.createSlide(), null, data, shapeId, relId);
+        final XSLFSlide slide = ppt.createSlide();
+        addDategraph(template, new PartNameAllocator(ppt.getPackage()), slide, null, downsample(data));
+        ChartFrames.reloadShapes(slide);
 
-        return ppt;
+        return removeOrphanParts(ppt);
     }
 
     /**
      * Internal implementation to add a date graph (aka xy scatterplot chart with time-series x-axis) to a slide, based on a template.
      * @param template the parsed template information.
+     * @param partNames the part name allocator for the presentation.
      * @param slide the slide to add to.
      * @param anchor optional bounding rectangle to draw onto, in PowerPoint coordinates.
      *               If null, we'll use the bounds from the original template chart.
      * @param data the date graph data.
-     * @param shapeId the slide shape ID, should be unique within the slide.
-     * @param relId the relation ID to the chart data.
      * @throws TemplateLoadException if we can't create the date graph; most likely due to an invalid template.
      */
-    private static void addDategraph(final SlideShowTemplate template, final XSLFSlide slide, final Rectangle2D.Double anchor, final DategraphData data, final int shapeId, final String relId) throws TemplateLoadException {
+    private static void addDategraph(final SlideShowTemplate template, final PartNameAllocator partNames, final XSLFSlide slide, final Rectangle2D.Double anchor, final DategraphData data) throws TemplateLoadException {
+        addChart(template, partNames, null, slide, anchor, prepareDategraph(template.getGraphChart(), data));
+    }
+
+    /**
+     * Internal implementation to build a date graph's chart XML and workbook, based on a template. This doesn't touch
+     *   the presentation, so it's safe to call concurrently.
+     * @param baseChart the xy scatterplot chart from the template.
+     * @param data the date graph data.
+     * @return the serialized chart.
+     * @throws TemplateLoadException if we can't create the date graph; most likely due to an invalid template.
+     */
+    private static PreparedChart prepareDategraph(final TemplateChart baseChart, final DategraphData data) throws TemplateLoadException {
         if (!data.validateInput()) {
             throw new IllegalArgumentException("Invalid data provided");
         }
@@ -1275,63 +1563,66 @@ public class PowerPointServiceImpl implements PowerPointService {
             useSecondaryAxis = false;
         }
 
-        final XSSFWorkbook wb = writeChart(data);
+        // The x values are stored as Excel dates, in both the embedded workbook and the chart caches.
+        final long[] timestamps = data.getTimestamps();
+        final double[] excelDates = new double[timestamps.length];
+        for(int ii = 0; ii < timestamps.length; ++ii) {
+            excelDates[ii] = DateUtil.getExcelDate(new Date(timestamps[ii] * 1000), false);
+        }
 
-        final XMLSlideShow ppt = template.getSlideShow();
+        // Closing the workbook removes the temporary files holding the flushed rows
+        try(SXSSFWorkbook wb = writeChart(data, excelDates)) {
+            final CTChartSpace chartSpace = (CTChartSpace) baseChart.getChartSpace().copy();
+
+            final CTChart ctChart = chartSpace.getChart();
+            final CTPlotArea plotArea = ctChart.getPlotArea();
+            final Sheet sheet = wb.getSheetAt(0);
+
+            // In the template, we have two <c:scatterChart> objects, one for the primary axis, one for the secondary.
+            if (!useSecondaryAxis) {
+                // Discard the extra chart and its two axes.
+                // OpenOffice is happy enough if you remove the scatterplot chart, but PowerPoint will complain it's a corrupt
+                //   file and unhelpfully delete the entire chart when you choose 'repair' if any orphan axes remain.
+                plotArea.removeScatterChart(1);
+                plotArea.removeValAx(3);
+                plotArea.removeValAx(2);
+            }
 
-        slide.getXmlObject().getCSld().getSpTree().addNewGraphicFrame().set(template.getGraphChartShapeXML(relId, shapeId, "chart" + shapeId, anchor));
+            for(CTScatterChart ctScatterChart : plotArea.getScatterChartArray()) {
+                for(final CTScatterSer ser : ctScatterChart.getSerArray()) {
+                    ser.getDPtList().clear();
+                }
+            }
 
-        XSLFChart baseChart = template.getGraphChart();
-        final CTChartSpace chartSpace = (CTChartSpace) baseChart.getCTChartSpace().copy();
+            final ChartXmlWriter chartWriter = new ChartXmlWriter();
 
-        final CTChart ctChart = chartSpace.getChart();
-        final CTPlotArea plotArea = ctChart.getPlotArea();
-        final XSSFSheet sheet = wb.getSheetAt(0);
+            int primarySeriesCount = 0;
+            int secondarySeriesCount = 0;
 
-        // In the template, we have two <c:scatterChart> objects, one for the primary axis, one for the secondary.
-        if (!useSecondaryAxis) {
-            // Discard the extra chart and its two axes.
-            // OpenOffice is happy enough if you remove the scatterplot chart, but PowerPoint will complain it's a corrupt
-            //   file and unhelpfully delete the entire chart when you choose 'repair' if any orphan axes remain.
-            plotArea.removeScatterChart(1);
-            plotArea.removeValAx(3);
-            plotArea.removeValAx(2);
-        }
+            for (int seriesIdx = 0; seriesIdx < rows.size(); ++seriesIdx) {
+                final DategraphData.Row row = rows.get(seriesIdx);
 
-        for(CTScatterChart ctScatterChart : plotArea.getScatterChartArray()) {
-            for(final CTScatterSer ser : ctScatterChart.getSerArray()) {
-                ser.getDPtList().clear();
-            }
-        }
+                final CTScatterChart tgtChart = plotArea.getScatterChartArray(row.isSecondaryAxis() ? 1 : 0);
 
-        int primarySeriesCount = 0;
-        int secondarySeriesCount = 0;
+                final CTScatterSer[] serArray = tgtChart.getSerArray();
+                final int createdSeriesIdx = row.isSecondaryAxis() ? secondarySeriesCount++ : primarySeriesCount++;
 
-        for (int seriesIdx = 0; seriesIdx < rows.size(); ++seriesIdx) {
-            final DategraphData.Row row = rows.get(seriesIdx);
+                final CTScatterSer curSeries;
 
-            final CTScatterChart tgtChart = plotArea.getScatterChartArray(row.isSecondaryAxis() ? 1 : 0);
-
-            final CTScatterSer[] serArray = tgtChart.getSerArray();
-            final int createdSeriesIdx = row.isSecondaryAxis() ? secondarySeriesCount++ : primarySeriesCount++;
-
-            final CTScatterSer curSeries;
+                if (createdSeriesIdx < serArray.length) {
+                    curSeries = serArray[createdSeriesIdx];
+                }
+                else {
+                    curSeries = tgtChart.addNewSer();
+                    curSeries.set(serArray[0].copy());
+                }
 
-            if (createdSeriesIdx < serArray.length) {
-                curSeries = serArray[createdSeriesIdx];
-            }
-            else {
-                curSeries = tgtChart.addNewSer();
-                curSeries.set(serArray[0].copy());
+                updateCTScatterSer(data, excelDates, chartWriter, sheet, seriesIdx, curSeries);
             }
 
-            updateCTScatterSer(data, sheet, seriesIdx, curSeries);
-        }
-
-        try {
-            writeChart(ppt, slide, baseChart, chartSpace, wb, relId);
+            return prepareChart(baseChart, chartSpace, chartWriter, wb);
         }
-        catch(IOException|InvalidFormatException e) {
+        catch(IOException e) {
             throw new TemplateLoadException("Unexpected error writing files from loaded template", e);
         }
     }
@@ -1339,11 +1630,13 @@ public class PowerPointServiceImpl implements PowerPointService {
     /**
      * Utility function to update a scatterplot line's data series.
      * @param data the datagraph data.
+     * @param excelDates the timestamps as Excel dates, shared between all the series.
+     * @param chartWriter the chart writer which will write the series caches.
      * @param sheet the Excel sheet which contains corresponding data from the scatterplot data series.
      * @param seriesIdx the index of the data in the dategraph data.
      * @param series the XML object representing the series in the chart.
      */
-    private static void updateCTScatterSer(final DategraphData data, final XSSFSheet sheet, final int seriesIdx, final CTScatterSer series) {
+    private static void updateCTScatterSer(final DategraphData data, final double[] excelDates, final ChartXmlWriter chartWriter, final Sheet sheet, final int seriesIdx, final CTScatterSer series) {
         final String sheetName = sheet.getSheetName();
 
         // the series idx starts from 0
@@ -1409,15 +1702,7 @@ public class PowerPointServiceImpl implements PowerPointService {
                 SpreadsheetVersion.EXCEL2007
             ).formatAsString());
 
-            final CTNumData timeStampCatNumCache = timestampCatNumRef.getNumCache();
-            timeStampCatNumCache.getPtCount().setVal(timestamps.length);
-            timeStampCatNumCache.setPtArray(null);
-
-            for(int ii = 0; ii < timestamps.length; ++ii) {
-                final CTNumVal pt = timeStampCatNumCache.addNewPt();
-                pt.setIdx(ii);
-                pt.setV(sheet.getRow(1 + ii).getCell(0).getRawValue());
-            }
+            chartWriter.setNumCache(timestampCatNumRef.getNumCache(), excelDates.length, ii -> excelDates[ii]);
         }
 
         {
@@ -1430,15 +1715,7 @@ public class PowerPointServiceImpl implements PowerPointService {
                 SpreadsheetVersion.EXCEL2007
             ).formatAsString());
 
-            final CTNumData valuesNumCache = valuesNumRef.getNumCache();
-            valuesNumCache.getPtCount().setVal(timestamps.length);
-            valuesNumCache.setPtArray(null);
-
-            for(int ii = 0; ii < timestamps.length; ++ii) {
-                final CTNumVal pt = valuesNumCache.addNewPt();
-                pt.setIdx(ii);
-                pt.setV(Double.toString(seriesData[ii]));
-            }
+            chartWriter.setNumCache(valuesNumRef.getNumCache(), timestamps.length, ii -> seriesData[ii]);
         }
     }
 
@@ -1446,31 +1723,36 @@ public class PowerPointServiceImpl implements PowerPointService {
      * Utility function to write the date graph data as a Excel workbook; required since PowerPoint charts actually
      *   embed an Excel file with corresponding data. If invalid, it'll open in OpenOffice fine, but PowerPoint will
      *   complain that the presentation is corrupted.
+     * The workbook is a streaming workbook which only keeps a small window of rows in memory and flushes the rest to a
+     *   temporary file, so large date graphs don't need a row and cell object per point; the caller should dispose of
+     *   it once it's been written.
      * @param data the date graph data.
+     * @param excelDates the timestamps as Excel dates.
      * @return a new Excel workbook with specified data on a new sheet.
      */
-    private static XSSFWorkbook writeChart(final DategraphData data) {
-        final XSSFWorkbook wb = new XSSFWorkbook();
-        final XSSFSheet sheet = wb.createSheet("Sheet1");
+    private static SXSSFWorkbook writeChart(final DategraphData data, final double[] excelDates) {
+        final SXSSFWorkbook wb = new SXSSFWorkbook(DATEGRAPH_ROW_WINDOW);
+        wb.setCompressTempFiles(true);
+
+        final Sheet sheet = wb.createSheet("Sheet1");
 
         final CellStyle cellStyle = wb.createCellStyle();
         cellStyle.setDataFormat((short) 14);
 
         final List<DategraphData.Row> rows = data.getRows();
-        final long[] timestamps = data.getTimestamps();
 
-        final XSSFRow header = sheet.createRow(0);
+        final Row header = sheet.createRow(0);
         header.createCell(0).setCellValue("Timestamp");
         for (int ii = 0; ii < rows.size(); ++ii) {
             header.createCell(ii + 1).setCellValue(rows.get(ii).getLabel());
         }
 
-        for (int rowIdx = 0; rowIdx < timestamps.length; ++rowIdx) {
-            final XSSFRow row = sheet.createRow(rowIdx + 1);
+        for (int rowIdx = 0; rowIdx < excelDates.length; ++rowIdx) {
+            final Row row = sheet.createRow(rowIdx + 1);
 
-            final XSSFCell cell = row.createCell(0);
+            final Cell cell = row.createCell(0);
             cell.setCellStyle(cellStyle);
-            cell.setCellValue(new Date(timestamps[rowIdx] * 1000));
+            cell.setCellValue(excelDates[rowIdx]);
 
             for (int ii = 0; ii < rows.size(); ++ii) {
                 row.createCell(ii + 1).setCellValue(rows.get(ii).getValues()[rowIdx]);
@@ -1482,132 +1764,331 @@ public class PowerPointServiceImpl implements PowerPointService {
 
     @Override
     public XMLSlideShow report(final ReportData report, final boolean slidePerVisualizer) throws TemplateLoadException {
+        return renderReport(report, slidePerVisualizer, slide -> {});
+    }
+
+    /**
+     * Writes each slide to the output stream as soon as it's finished, rather than once the whole report is drawn.
+     */
+    @Override
+    public void report(final ReportData report, final boolean slidePerVisualizer, final OutputStream outputStream) throws TemplateLoadException, IOException {
+        final StreamingSlideWriter writer = new StreamingSlideWriter(outputStream);
+
+        try(XMLSlideShow ppt = renderReport(report, slidePerVisualizer, writer::writeSlide)) {
+            writer.finish(ppt);
+        }
+    }
+
+    /**
+     * Renders a composite report.
+     * @param report the data containing a list of visualizations to render.
+     * @param slidePerVisualizer if true, we'll put each visualization on a separate slide.
+     * @param finishedSlides called with each slide once nothing else will be added to it.
+     * @return the presentation.
+     * @throws TemplateLoadException if the template is invalid.
+     */
+    private XMLSlideShow renderReport(final ReportData report, final boolean slidePerVisualizer, final Consumer<XSLFSlide> finishedSlides) throws TemplateLoadException {
         final SlideShowTemplate template = loadTemplate();
         final XMLSlideShow ppt = template.getSlideShow();
 
         final Rectangle2D.Double pageAnchor = createPageAnchor(ppt);
-        double width = pageAnchor.getWidth();
-        double height = pageAnchor.getHeight();
 
-        if (!slidePerVisualizer) {
-            // If drawing multiple visualizations on a single slide, we need to render the charts first since adding
-            //   chart objects directly via XML after calling slide.getShapes() or createShape() etc. will break things.
-            Arrays.sort(report.getChildren(), Comparator.comparingInt(PowerPointServiceImpl::prioritizeCharts));
+        final List<String> imageIds = new ArrayList<>();
+        boolean hasTopicMap = false;
+
+        for(final ReportData.Child child : report.getChildren()) {
+            if (child.getData() instanceof ListData) {
+                addThumbnailIds(imageIds, (ListData) child.getData());
+            }
+            else if (child.getData() instanceof MapData) {
+                imageIds.add(((MapData) child.getData()).getImage());
+            }
+            else if (child.getData() instanceof TopicMapData) {
+                hasTopicMap = true;
+            }
         }
 
-        // As above, we need to have a separate slide to place our sizing textbox for calculations.
-        XSLFSlide sizingSlide = ppt.createSlide();
+        // The children may be laid out on worker threads, so we resolve everything they need from the presentation here.
+        final TextBoxStyle textBoxStyle = TextBoxStyle.of(ppt);
+        final TextBoxStyle freeformStyle = hasTopicMap ? TextBoxStyle.ofFreeform(ppt) : null;
+        final ImageSource images = prefetchImages(imageIds);
+        final ImageResampler resampler = createResampler();
+        final ReportFragment[] fragments = layoutChildren(template, pageAnchor, textBoxStyle, freeformStyle, images, resampler, report.getChildren());
+
+        final PartNameAllocator partNames = new PartNameAllocator(ppt.getPackage());
+        final PictureRegistry pictures = new PictureRegistry(ppt);
+        final Map<TemplateChart.RelatedPart, PackagePartName> sharedChartParts = pptxSettings.getSettings().isShareChartParts() ? new HashMap<>() : null;
+
+        // Titles are only created once the visualizers on their slide have been drawn, so they're never hidden
+        //   underneath them.
+        final List<ImmutablePair<ReportData.Child, Rectangle2D.Double>> titles = new ArrayList<>();
+
         // This is the slide to draw on.
         XSLFSlide slide = ppt.createSlide();
 
-        int shapeId = 1;
-        boolean first = true;
+        for(int childIdx = 0; childIdx < report.getChildren().length; ++childIdx) {
+            final ReportData.Child child = report.getChildren()[childIdx];
+            final ReportFragment fragment = fragments[childIdx];
 
-        for(final ReportData.Child child : report.getChildren()) {
-            if (slidePerVisualizer && !first) {
-                sizingSlide = ppt.createSlide();
+            if (slidePerVisualizer && childIdx > 0) {
                 slide = ppt.createSlide();
             }
 
-            first = false;
+            if (fragment.titleAnchor != null) {
+                titles.add(new ImmutablePair<>(child, fragment.titleAnchor));
+            }
 
             final ComposableElement data = child.getData();
-            final Rectangle2D.Double anchor = new Rectangle2D.Double(
-                    pageAnchor.getMinX() + width * child.getX(),
-                    pageAnchor.getMinY() + height * child.getY(),
-                    width * child.getWidth(),
-                    height * child.getHeight());
-
-            if (child.getMargin() >= 0) {
-                final double margin = child.getMargin();
-                final double marginX2 = margin * 2;
-                final double textMargin = child.getTextMargin();
-
-                if (anchor.getWidth() > marginX2) {
-                    double xCursor = anchor.getMinX() + margin,
-                           xWidthAvail = anchor.getWidth() - marginX2,
-                           yCursor = anchor.getMinY() + margin,
-                           yHeightAvail = anchor.getHeight() - marginX2;
-                    XSLFTextBox sizingBox = null;
-
-                    final String title = child.getTitle();
-                    if (StringUtils.isNotEmpty(title) && yHeightAvail > 0) {
-                        sizingBox = sizingSlide.createTextBox();
-                        final Rectangle2D.Double sizingAnchor = new Rectangle2D.Double(
-                                xCursor,
-                                yCursor,
-                                xWidthAvail,
-                                yHeightAvail);
-                        sizingBox.setAnchor(sizingAnchor);
-                        sizingBox.clearText();
-                        addTextRun(sizingBox.addNewTextParagraph(), title, child.getFontSize(), Color.BLACK).setFontFamily(child.getFontFamily());
-
-                        final double textHeight = sizingBox.getTextHeight() + textMargin;
-                        yCursor += textHeight;
-                        yHeightAvail -= textHeight;
-                    }
-
-                    if (yHeightAvail > 0) {
-                        anchor.setRect(xCursor, yCursor, xWidthAvail, yHeightAvail);
-                    }
-                    else if (sizingBox != null) {
-                        sizingSlide.removeShape(sizingBox);
-                    }
-                }
-            }
+            final Rectangle2D.Double anchor = fragment.anchor;
 
-            if (data instanceof DategraphData) {
-                addDategraph(template, slide, anchor, (DategraphData) data, shapeId, "relId" + shapeId);
-                shapeId++;
+            if (data instanceof DategraphData || data instanceof SunburstData) {
+                addChart(template, partNames, sharedChartParts, slide, anchor, fragment.chart);
             }
             else if (data instanceof ListData) {
-                final ListData listData = (ListData) data;
-                addList(imageSource, ppt, slide, anchor, false, listData, null, null);
+                drawList(ppt, pictures, slide, anchor, (ListData) data, null, null, fragment.list, finishedSlides);
             }
             else if (data instanceof MapData) {
                 final MapData mapData = (MapData) data;
-                addMap(slide, anchor, addPictureData(imageSource, ppt, mapData.getImage()), mapData.getMarkers(), mapData.getPolygons());
-            }
-            else if (data instanceof SunburstData) {
-                addSunburst(template, slide, anchor, (SunburstData) data, shapeId, "relId" + shapeId);
-                shapeId++;
+                addMap(slide, pictures, anchor, mapData.getImage(), fragment.mapImage, mapData.getMarkers(), mapData.getPolygons());
             }
             else if (data instanceof TableData) {
                 final TableData tableData = (TableData) data;
                 addTable(slide, anchor, tableData.getRows(), tableData.getCols(), tableData.getCells(), true);
             }
             else if (data instanceof TopicMapData) {
-                addTopicMap(slide, anchor, (TopicMapData) data);
+                addTopicMap(slide, anchor, (TopicMapData) data, fragment.topicMapFontScales);
             }
             else if (data instanceof TextData) {
-                addTextData(slide, anchor, (TextData) data);
+                addTextData(slide, anchor, (TextData) data, fragment.text);
             }
 
             if (slidePerVisualizer) {
-                transferSizedTextboxes(ppt, slide, sizingSlide);
+                addTitles(slide, titles);
+                finishSlide(slide, finishedSlides);
             }
         }
 
         if (!slidePerVisualizer) {
-            transferSizedTextboxes(ppt, slide, sizingSlide);
+            addTitles(slide, titles);
+            finishSlide(slide, finishedSlides);
         }
 
-        return ppt;
+        return removeOrphanParts(ppt);
     }
 
-    private static void transferSizedTextboxes(final XMLSlideShow ppt, final XSLFSlide slide, final XSLFSlide sizingSlide) {
-        // Clone all text boxes to the original slide afterward, and remove the sizing slide
-        for(XSLFShape shape : sizingSlide.getShapes()) {
-            if (shape instanceof XSLFTextBox) {
-                final XSLFTextBox src = (XSLFTextBox) shape;
-                final XSLFTextBox textBox = slide.createTextBox();
-                textBox.setAnchor(src.getAnchor());
-                textBox.clearText();
-                src.forEach(srcPara -> textBox.addNewTextParagraph().getXmlObject().set(srcPara.getXmlObject().copy()));
+    /**
+     * Lays out a report's children, on up to {@link TemplateSettings#getReportThreads()} worker threads at once.
+     * Nothing here touches the presentation, so the result is the same however many threads are used.
+     * @param template the parsed template information.
+     * @param pageAnchor bounding rectangle of the page, in PowerPoint coordinates.
+     * @param textBoxStyle the presentation's text box settings.
+     * @param freeformStyle the presentation's freeform shape settings, or null if there aren't any topic maps.
+     * @param images the image source to convert images to data.
+     * @param resampler the resampler to shrink images with, or null if they should be embedded as they are.
+     * @param children the report's children.
+     * @return the laid out children, in the same order as the children.
+     * @throws TemplateLoadException if we can't create a chart; most likely due to an invalid template.
+     */
+    private ReportFragment[] layoutChildren(final SlideShowTemplate template, final Rectangle2D.Double pageAnchor, final TextBoxStyle textBoxStyle, final TextBoxStyle freeformStyle, final ImageSource images, final ImageResampler resampler, final ReportData.Child[] children) throws TemplateLoadException {
+        final ReportFragment[] fragments = new ReportFragment[children.length];
+        final int threads = Math.min(pptxSettings.getSettings().getReportThreads(), children.length);
+
+        if (threads < 2) {
+            for(int ii = 0; ii < children.length; ++ii) {
+                fragments[ii] = layoutChild(template, pageAnchor, textBoxStyle, freeformStyle, images, resampler, children[ii]);
             }
+
+            return fragments;
+        }
+
+        final List<Callable<ReportFragment>> tasks = new ArrayList<>(children.length);
+
+        for(final ReportData.Child child : children) {
+            tasks.add(() -> layoutChild(template, pageAnchor, textBoxStyle, freeformStyle, images, resampler, child));
         }
 
-        ppt.removeSlide(ppt.getSlides().indexOf(sizingSlide));
+        final List<Future<ReportFragment>> futures = WorkerPools.submitAll(reportExecutor, tasks, threads);
+
+        try {
+            for(int ii = 0; ii < futures.size(); ++ii) {
+                fragments[ii] = futures.get(ii).get();
+            }
+
+            return fragments;
+        }
+        catch(ExecutionException e) {
+            final Throwable cause = e.getCause();
+
+            if (cause instanceof TemplateLoadException) {
+                throw (TemplateLoadException) cause;
+            }
+            else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new TemplateLoadException("Error laying out report", cause);
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TemplateLoadException("Interrupted while laying out report", e);
+        }
+        finally {
+            // if a child failed, don't carry on with the rest
+            WorkerPools.cancelAll(futures);
+        }
+    }
+
+    /**
+     * Lays out a single report child: where it and its title go, and its chart, list, image or text; without touching
+     *   the presentation, so it's safe to call from worker threads.
+     * @param template the parsed template information.
+     * @param pageAnchor bounding rectangle of the page, in PowerPoint coordinates.
+     * @param textBoxStyle the presentation's text box settings.
+     * @param freeformStyle the presentation's freeform shape settings, or null if there aren't any topic maps.
+     * @param images the image source to convert images to data.
+     * @param resampler the resampler to shrink images with, or null if they should be embedded as they are.
+     * @param child the report child.
+     * @return the laid out child.
+     * @throws TemplateLoadException if we can't create a chart; most likely due to an invalid template.
+     */
+    private ReportFragment layoutChild(final SlideShowTemplate template, final Rectangle2D.Double pageAnchor, final TextBoxStyle textBoxStyle, final TextBoxStyle freeformStyle, final ImageSource images, final ImageResampler resampler, final ReportData.Child child) throws TemplateLoadException {
+        final double width = pageAnchor.getWidth();
+        final double height = pageAnchor.getHeight();
+
+        final Rectangle2D.Double anchor = new Rectangle2D.Double(
+                pageAnchor.getMinX() + width * child.getX(),
+                pageAnchor.getMinY() + height * child.getY(),
+                width * child.getWidth(),
+                height * child.getHeight());
+
+        Rectangle2D.Double drawnTitleAnchor = null;
+
+        if (child.getMargin() >= 0) {
+            final double margin = child.getMargin();
+            final double marginX2 = margin * 2;
+            final double textMargin = child.getTextMargin();
+
+            if (anchor.getWidth() > marginX2) {
+                double xCursor = anchor.getMinX() + margin,
+                       xWidthAvail = anchor.getWidth() - marginX2,
+                       yCursor = anchor.getMinY() + margin,
+                       yHeightAvail = anchor.getHeight() - marginX2;
+                Rectangle2D.Double titleAnchor = null;
+
+                final String title = child.getTitle();
+                if (StringUtils.isNotEmpty(title) && yHeightAvail > 0) {
+                    titleAnchor = new Rectangle2D.Double(
+                            xCursor,
+                            yCursor,
+                            xWidthAvail,
+                            yHeightAvail);
+
+                    final TextMeasurer.Paragraph measured = new TextMeasurer.Paragraph(textBoxStyle.getParagraphStyle());
+                    measured.addRun(title, child.getFontFamily() != null ? child.getFontFamily() : textBoxStyle.getFontFamily(), child.getFontSize(), false, false);
+
+                    final double textHeight = TextMeasurer.getTextHeight(textBoxStyle.getTextWidth(xWidthAvail), measured) + textMargin;
+                    yCursor += textHeight;
+                    yHeightAvail -= textHeight;
+                }
+
+                if (yHeightAvail > 0) {
+                    anchor.setRect(xCursor, yCursor, xWidthAvail, yHeightAvail);
+                    drawnTitleAnchor = titleAnchor;
+                }
+            }
+        }
+
+        final ReportFragment fragment = new ReportFragment(anchor, drawnTitleAnchor);
+        final ComposableElement data = child.getData();
+
+        if (data instanceof DategraphData || data instanceof SunburstData) {
+            fragment.chart = prepareChart(template, data);
+        }
+        else if (data instanceof ListData) {
+            fragment.list = layoutList(images, resampler, textBoxStyle, anchor, false, true, (ListData) data, null, null);
+        }
+        else if (data instanceof MapData) {
+            fragment.mapImage = getImageData(images, resampler, ((MapData) data).getImage(), anchor);
+        }
+        else if (data instanceof TopicMapData) {
+            fragment.topicMapFontScales = layoutTopicMap(freeformStyle, anchor, (TopicMapData) data);
+        }
+        else if (data instanceof TextData) {
+            fragment.text = layoutTextData(textBoxStyle, anchor, (TextData) data);
+        }
+
+        return fragment;
+    }
+
+    /**
+     * Builds the chart for a single date graph or sunburst report child.
+     * @param template the parsed template information.
+     * @param data the child's data.
+     * @return the prepared chart.
+     * @throws TemplateLoadException if we can't create the chart; most likely due to an invalid template.
+     */
+    private PreparedChart prepareChart(final SlideShowTemplate template, final ComposableElement data) throws TemplateLoadException {
+        return data instanceof DategraphData
+                ? prepareDategraph(template.getGraphChart(), downsample((DategraphData) data))
+                : prepareSunburst(template.getDoughnutChart(), (SunburstData) data);
+    }
+
+    /**
+     * Adds the measured titles of report children to a slide.
+     * @param slide the slide to add to.
+     * @param titles the children whose titles should be drawn, with their title bounds; the list is cleared afterwards.
+     */
+    private static void addTitles(final XSLFSlide slide, final List<ImmutablePair<ReportData.Child, Rectangle2D.Double>> titles) {
+        for(final ImmutablePair<ReportData.Child, Rectangle2D.Double> title : titles) {
+            final ReportData.Child child = title.getLeft();
+            final XSLFTextBox textBox = slide.createTextBox();
+            textBox.setAnchor(title.getRight());
+            textBox.clearText();
+            final XSLFTextRun titleRun = addTextRun(textBox.addNewTextParagraph(), child.getTitle(), child.getFontSize(), Color.BLACK);
+            titleRun.setFontFamily(child.getFontFamily());
+        }
+
+        titles.clear();
+    }
+
+    /**
+     * Internal implementation to work out how much of a TextData object fits into a text box, truncating the last run
+     *   which fits at a word boundary; without creating any shapes, so it's safe to call from worker threads.
+     * @param textBoxStyle the presentation's text box settings.
+     * @param anchor bounding rectangle to draw onto, in PowerPoint coordinates.
+     * @param data the text data to render.
+     * @return the text which fits.
+     */
+    private static TextLayout layoutTextData(final TextBoxStyle textBoxStyle, final Rectangle2D.Double anchor, final TextData data) {
+        final TextMeasurer.Paragraph measured = new TextMeasurer.Paragraph(textBoxStyle.getParagraphStyle());
+        // All the runs use the template's default font.
+        final String fontFamily = textBoxStyle.getFontFamily();
+        // The text box's anchor is stored in EMUs, so round the width the same way it would be.
+        final double textWidth = textBoxStyle.getTextWidth(Units.toPoints(Units.toEMU(anchor.getWidth())));
+
+        final TextData.Paragraph[] runs = data.getText();
+        final List<String> texts = new ArrayList<>(runs.length);
+
+        for(final TextData.Paragraph runData : runs) {
+            final TextMeasurer.Run measuredRun = measured.addRun(runData.getText(), fontFamily, runData.getFontSize(), runData.isBold(), runData.isItalic());
+
+            if (TextMeasurer.getTextHeight(textWidth, measured) > anchor.getHeight()) {
+                // Find the most words from the last box which fit, or we run out of words
+                texts.add(truncateToFit(runData.getText().trim(), truncated -> {
+                    measuredRun.setText(truncated);
+                    return TextMeasurer.getTextHeight(textWidth, measured) <= anchor.getHeight();
+                }));
+
+                return new TextLayout(texts.toArray(new String[0]), true);
+            }
+
+            texts.add(runData.getText());
+        }
+
+        return new TextLayout(texts.toArray(new String[0]), false);
     }
 
     /**
@@ -1616,131 +2097,179 @@ public class PowerPointServiceImpl implements PowerPointService {
      * @param slide the slide to add to.
      * @param anchor bounding rectangle to draw onto, in PowerPoint coordinates.
      * @param data the text data to render.
+     * @param layout the text which fits, from {@link #layoutTextData}.
      */
-    private void addTextData(final XSLFSlide slide, final Rectangle2D.Double anchor, final TextData data) {
+    private static void addTextData(final XSLFSlide slide, final Rectangle2D.Double anchor, final TextData data, final TextLayout layout) {
         final XSLFTextBox textBox = slide.createTextBox();
         textBox.setAnchor(anchor);
         textBox.clearText();
 
         final XSLFTextParagraph para = textBox.addNewTextParagraph();
 
-        for(final TextData.Paragraph runData : data.getText()) {
+        for(int ii = 0; ii < layout.runs.length; ++ii) {
+            final TextData.Paragraph runData = data.getText()[ii];
             final XSLFTextRun run = para.addNewTextRun();
-            run.setText(runData.getText());
+            run.setText(layout.runs[ii]);
             run.setFontSize(runData.getFontSize());
             run.setBold(runData.isBold());
             run.setItalic(runData.isItalic());
             run.setFontColor(Color.decode(runData.getColor()));
+        }
 
-            if (textBox.getTextHeight() > anchor.getHeight()) {
-                // Try removing words from the last box until we find something that fits, or we run out of words
-                final String trimmedText = runData.getText().trim();
-                run.setText(trimmedText);
+        if (layout.truncated) {
+            // The font metrics aren't going to be perfect (due to unavailability of fonts etc.) so we force the truncated text to fit.
+            textBox.setTextAutofit(TextShape.TextAutofit.NORMAL);
+        }
+    }
 
-                for (final StringBuilder text = new StringBuilder(trimmedText); textBox.getTextHeight() > anchor.getHeight() && text.length() > 0 ; ) {
-                    final int lastSpaceIdx = Math.max(text.lastIndexOf(" "), text.lastIndexOf("\n"));
+    /**
+     * Truncates text at a word boundary, with a trailing ellipsis, so it fits into the available space.
+     * Since removing words never makes text taller, we binary-search over the word boundaries for the longest text
+     *   which fits, rather than removing one word at a time; so it takes a logarithmic number of measurements.
+     * @param text the text to truncate, which shouldn't have leading or trailing whitespace.
+     * @param fits tests whether a candidate truncated text fits.
+     * @return the text if it fits, otherwise the longest truncated text which fits. If nothing fits, we return the
+     *   shortest truncated text, or the original text if it doesn't have any word boundaries.
+     */
+    static String truncateToFit(final String text, final Predicate<String> fits) {
+        if (fits.test(text)) {
+            return text;
+        }
 
-                    if (lastSpaceIdx < 0) {
-                        break;
-                    }
+        final List<Integer> breaks = new ArrayList<>();
+        for(int ii = 0; ii < text.length(); ++ii) {
+            final char c = text.charAt(ii);
+            if (c == ' ' || c == '\n') {
+                breaks.add(ii);
+            }
+        }
 
-                    text.delete(lastSpaceIdx, text.length());
-                    // Add a trailing ellipsis unless it's empty or already contained a trailing ellipsis or "..." at the final truncated position.
-                    run.setText(text.length() > 0 ? text.toString().replaceFirst("(\\s*(\\.{3}|\u2026))?$", "\u2026") : "");
-                }
+        if (breaks.isEmpty()) {
+            return text;
+        }
 
-                // The font metrics aren't going to be perfect (due to unavailability of fonts etc.) so we force the truncated text to fit.
-                textBox.setTextAutofit(TextShape.TextAutofit.NORMAL);
+        int low = 0, high = breaks.size() - 1, best = 0;
 
-                break;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+
+            if (fits.test(ellipsize(text.substring(0, breaks.get(mid))))) {
+                best = mid;
+                low = mid + 1;
+            }
+            else {
+                high = mid - 1;
             }
         }
-    }
 
-    /**
-     * Utility function to define a sort order which places date graph and sunburst to the front, since they have to
-     *   be added to the XML before any other shapes are drawn on the slide.
-     * @param child the child to test.
-     * @return -1 for date graphs/sunbursts, 0 otherwise.
-     */
-    private static int prioritizeCharts(final ReportData.Child child) {
-        final ComposableElement d = child.getData();
-        return d instanceof DategraphData || d instanceof SunburstData ? -1 : 0;
+        return ellipsize(text.substring(0, breaks.get(best)));
     }
 
     /**
-     * Utility function to generate a new unique package part name within a PowerPoint zip file, given a base name
-     *   which has a number before the file extension.
-     * @param opcPackage the PowerPoint zip package.
-     * @param baseName the original name.
-     * @return a new unique package part name with an incremented number if the old name had a number before the file extension,
-     *         or the old name otherwise.
-     * @throws InvalidFormatException if there was an exception while generating the new name.
+     * Adds a trailing ellipsis to truncated text, unless it's empty. If the text already ends with an ellipsis or
+     *   "...", optionally followed by whitespace, it's replaced.
+     * @param text the truncated text.
+     * @return the text with a trailing ellipsis.
      */
-    private static PackagePartName generateNewName(final OPCPackage opcPackage, final String baseName) throws InvalidFormatException {
-        final Pattern pattern = Pattern.compile("(.*?)(\\d+)(\\.\\w+)?$");
-
-        final Matcher matcher = pattern.matcher(baseName);
+    private static String ellipsize(final String text) {
+        if (text.isEmpty()) {
+            return text;
+        }
 
-        if (matcher.find()) {
-            int num = Integer.parseInt(matcher.group(2));
+        int end = text.length();
 
-            for (int ii = num + 1; ii < Integer.MAX_VALUE; ++ii) {
-                final PackagePartName testName = PackagingURIHelper.createPartName(matcher.group(1) + ii + matcher.group(3));
+        if (text.endsWith("...") || text.endsWith("\u2026")) {
+            end -= text.endsWith("...") ? 3 : 1;
 
-                if (opcPackage.getPart(testName) == null) {
-                    return testName;
-                }
+            while (end > 0 && " \t\n\u000B\f\r".indexOf(text.charAt(end - 1)) >= 0) {
+                --end;
             }
         }
 
-        // If the document doesn't have a numeric extension, just return it
-        return PackagingURIHelper.createPartName(baseName);
+        return text.substring(0, end) + '\u2026';
     }
 
     /**
-     * Utility function to write a chart object to a slide based on a template.
-     * Creates new copies of referred objects in the chart, e.g. colors1.xml and style1.xml, and writes the Excel
-     *   workbook data to new files in the PowerPoint .zip structure.
-     * @param pptx the presentation to add to.
-     * @param slide the slide to add to.
+     * Utility function to serialize a chart's XML and Excel workbook, ready to be added to a presentation.
      * @param templateChart the original template chart XML reference object from the template.
      * @param modifiedChart the new chart XML object.
+     * @param chartWriter the chart writer holding the series caches for the chart XML.
      * @param workbook the Excel workbook data corresponding to the chart XML data.
-     * @param relId the relation id for the new chart.
-     * @throws IOException if there's IO errors working with the chart.
-     * @throws InvalidFormatException if there's errors generating new package part names for the new copies of the data.
+     * @return the serialized chart.
+     * @throws IOException if there's IO errors writing the chart or workbook.
      */
-    private static void writeChart(final XMLSlideShow pptx, final XSLFSlide slide, final XSLFChart templateChart, final CTChartSpace modifiedChart, final XSSFWorkbook workbook, final String relId) throws IOException, InvalidFormatException {
-        final OPCPackage opcPackage = pptx.getPackage();
-        final PackagePartName chartName = generateNewName(opcPackage, templateChart.getPackagePart().getPartName().getURI().getPath());
-
-        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    private static PreparedChart prepareChart(final TemplateChart templateChart, final CTChartSpace modifiedChart, final ChartXmlWriter chartWriter, final Workbook workbook) throws IOException {
         XmlOptions xmlOptions = new XmlOptions(DEFAULT_XML_OPTIONS);
         xmlOptions.setSaveSyntheticDocumentElement(new QName(CTChartSpace.type.getName().getNamespaceURI(), "chartSpace", "c"));
-        modifiedChart.save(baos, xmlOptions);
 
-        final PackagePart chartPart = opcPackage.createPart(chartName, XSLFRelation.CHART.getContentType(), baos);
+        final ByteArrayOutputStream chartXml = new ByteArrayOutputStream();
+        chartWriter.write(modifiedChart, xmlOptions, chartXml);
 
-        slide.getPackagePart().addRelationship(chartName, TargetMode.INTERNAL, XSLFRelation.CHART.getRelation(), relId);
+        final ByteArrayOutputStream workbookData = new ByteArrayOutputStream();
+        workbook.write(workbookData);
 
-        for(final POIXMLDocumentPart.RelationPart part : templateChart.getRelationParts()) {
-            final ByteArrayOutputStream partCopy = new ByteArrayOutputStream();
-            final URI targetURI = part.getRelationship().getTargetURI();
+        return new PreparedChart(templateChart, chartXml.toByteArray(), workbookData.toByteArray());
+    }
 
-            final PackagePartName name = generateNewName(opcPackage, targetURI.getPath());
+    /**
+     * Utility function to add a prepared chart to a slide.
+     * Adds the chart's graphical object on top of the slide's existing shapes using {@link ChartFrames}, so it can be
+     *   mixed freely with other shapes; then writes the chart and new copies of the parts it refers to, e.g.
+     *   colors1.xml and style1.xml, with the Excel workbook data, to new files in the PowerPoint .zip structure.
+     * If sharing parts, the parts other than the workbook are only written for the first chart based on each template
+     *   chart, and later charts refer to the same files.
+     * @param template the parsed template information.
+     * @param partNames the part name allocator for the presentation.
+     * @param sharedParts the shareable parts already written to the presentation, which is updated with any new ones;
+     *                    or null to write new copies of them for every chart.
+     * @param slide the slide to add to.
+     * @param anchor optional bounding rectangle to draw onto, in PowerPoint coordinates.
+     *               If null, we'll use the bounds from the original template chart.
+     * @param chart the prepared chart.
+     * @throws TemplateLoadException if there's errors writing the chart or generating new package part names.
+     */
+    private static void addChart(final SlideShowTemplate template, final PartNameAllocator partNames, final Map<TemplateChart.RelatedPart, PackagePartName> sharedParts, final XSLFSlide slide, final Rectangle2D.Double anchor, final PreparedChart chart) throws TemplateLoadException {
+        final TemplateChart templateChart = chart.getTemplateChart();
+
+        final int shapeId = ChartFrames.add(slide, id -> template.getChartShapeXML(templateChart, "relId" + id, id, "chart" + id, anchor));
+        final String relId = "relId" + shapeId;
 
-            final String contentType = part.getDocumentPart().getPackagePart().getContentType();
+        try {
+            final OPCPackage opcPackage = template.getSlideShow().getPackage();
+            final PackagePartName chartName = partNames.allocate(templateChart.getPartName());
 
-            if("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet".equals(contentType)) {
-                workbook.write(partCopy);
-            }
-            else {
-                IOUtils.copy(part.getDocumentPart().getPackagePart().getInputStream(), partCopy);
+            final PackagePart chartPart = opcPackage.createPart(chartName, XSLFRelation.CHART.getContentType());
+
+            try(OutputStream output = chartPart.getOutputStream()) {
+                output.write(chart.getChartXml());
             }
 
-            opcPackage.createPart(name, contentType, partCopy);
-            chartPart.addRelationship(name, TargetMode.INTERNAL, part.getRelationship().getRelationshipType());
+            slide.getPackagePart().addRelationship(chartName, TargetMode.INTERNAL, XSLFRelation.CHART.getRelation(), relId);
+
+            for(final TemplateChart.RelatedPart part : templateChart.getRelatedParts()) {
+                final String contentType = part.getContentType();
+                final boolean isWorkbook = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet".equals(contentType);
+                final boolean shared = sharedParts != null && !isWorkbook;
+
+                PackagePartName name = shared ? sharedParts.get(part) : null;
+
+                if (name == null) {
+                    name = partNames.allocate(part.getTargetPath());
+
+                    try(OutputStream partCopy = opcPackage.createPart(name, contentType).getOutputStream()) {
+                        partCopy.write(isWorkbook ? chart.getWorkbook() : part.getData());
+                    }
+
+                    if (shared) {
+                        sharedParts.put(part, name);
+                    }
+                }
+
+                chartPart.addRelationship(name, TargetMode.INTERNAL, part.getRelationshipType());
+            }
+        }
+        catch(IOException|InvalidFormatException e) {
+            throw new TemplateLoadException("Error writing chart in loaded template", e);
         }
     }
 }
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+/**
+ * Internal implementation class holding a chart which has been fully serialized independently of any presentation,
+ *   i.e. its chart XML and embedded workbook; so charts can be prepared concurrently and then added to a presentation
+ *   one at a time, which is cheap since it only copies the bytes into new package parts.
+ */
+class PreparedChart {
+
+    /** The template chart this was based on, for its related parts. */
+    private final TemplateChart templateChart;
+    /** The serialized chart XML. */
+    private final byte[] chartXml;
+    /** The serialized embedded workbook. */
+    private final byte[] workbook;
+
+    PreparedChart(final TemplateChart templateChart, final byte[] chartXml, final byte[] workbook) {
+        this.templateChart = templateChart;
+        this.chartXml = chartXml;
+        this.workbook = workbook;
+    }
+
+    TemplateChart getTemplateChart() {
+        return templateChart;
+    }
+
+    /**
+     * Get the chart XML. Do not modify the returned array.
+     * @return the chart XML.
+     */
+    byte[] getChartXml() {
+        return chartXml;
+    }
+
+    /**
+     * Get the embedded workbook data. Do not modify the returned array.
+     * @return the workbook data.
+     */
+    byte[] getWorkbook() {
+        return workbook;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+/**
+ * An interface for storing rendered PowerPoint files, used by {@link CachingPowerPointService}.
+ * Keys are hex-encoded SHA-256 digests of everything which affects the rendering, so they're safe to use as file
+ *   names. Implementations decide how much to keep and for how long, and must be thread-safe.
+ * @see MemoryRenderCache
+ * @see DiskRenderCache
+ */
+public interface RenderCache {
+
+    /**
+     * Get a previously stored rendering.
+     * @param key the digest of the rendering's inputs.
+     * @return the PowerPoint file data, or null if it's not stored or has expired. Callers must not modify it.
+     */
+    byte[] get(String key);
+
+    /**
+     * Stores a rendering; implementations may choose not to, e.g. if it's larger than their budget or can't be
+     *   written. Failing to store a rendering shouldn't fail the request it came from, so implementations shouldn't
+     *   throw exceptions.
+     * @param key the digest of the rendering's inputs.
+     * @param data the PowerPoint file data, which won't be modified afterwards.
+     */
+    void put(String key, byte[] data);
+
+    /**
+     * Discards all stored renderings, e.g. after the template has changed.
+     */
+    void invalidate();
+}
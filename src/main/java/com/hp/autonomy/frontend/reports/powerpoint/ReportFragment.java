@@ -0,0 +1,53 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Internal implementation class holding everything about a single report child which can be worked out without the
+ *   presentation, i.e. where it and its title go, and its measured layout, chart or image; so the children can be laid
+ *   out on worker threads, and their shapes then created one child at a time in order.
+ * Only the field for the child's type is set; tables don't need any layout.
+ */
+class ReportFragment {
+
+    /** Bounding rectangle to draw the child onto, in PowerPoint coordinates, excluding its title and margins. */
+    final Rectangle2D.Double anchor;
+
+    /** Bounding rectangle of the child's title, or null if it doesn't have a title which should be drawn. */
+    final Rectangle2D.Double titleAnchor;
+
+    /** The serialized chart, for date graphs and sunbursts. */
+    PreparedChart chart;
+
+    /** The measured list layout, for lists. */
+    ListLayout list;
+
+    /** The image data, already resampled, for maps. */
+    ImageData mapImage;
+
+    /** The font scale of each path's text, for topic maps. */
+    int[] topicMapFontScales;
+
+    /** The text which fits, for text. */
+    TextLayout text;
+
+    ReportFragment(final Rectangle2D.Double anchor, final Rectangle2D.Double titleAnchor) {
+        this.anchor = anchor;
+        this.titleAnchor = titleAnchor;
+    }
+}
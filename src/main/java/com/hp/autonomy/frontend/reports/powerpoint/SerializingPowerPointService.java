@@ -0,0 +1,165 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import com.hp.autonomy.frontend.reports.powerpoint.dto.DategraphData;
+import com.hp.autonomy.frontend.reports.powerpoint.dto.ListData;
+import com.hp.autonomy.frontend.reports.powerpoint.dto.MapData;
+import com.hp.autonomy.frontend.reports.powerpoint.dto.ReportData;
+import com.hp.autonomy.frontend.reports.powerpoint.dto.SunburstData;
+import com.hp.autonomy.frontend.reports.powerpoint.dto.TableData;
+import com.hp.autonomy.frontend.reports.powerpoint.dto.TopicMapData;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+
+/**
+ * Internal base class for PowerPointService decorators which work on serialized PowerPoint files, so a rendering can
+ *   be shared between requests with the same inputs.
+ * Each request is identified by a digest of the method, its arguments and the current template settings, and is
+ *   rendered by the underlying service straight to a byte array. Methods returning an XMLSlideShow parse a fresh
+ *   copy of the file for each caller, so callers can modify their presentation without affecting anyone else.
+ */
+abstract class SerializingPowerPointService implements PowerPointService {
+
+    /** The service which actually renders presentations. */
+    private final PowerPointService delegate;
+
+    /** The template settings, which are part of each request's identity. */
+    private final TemplateSettingsSource settingsSource;
+
+    SerializingPowerPointService(final PowerPointService delegate, final TemplateSettingsSource settingsSource) {
+        this.delegate = delegate;
+        this.settingsSource = settingsSource;
+    }
+
+    /**
+     * Get the PowerPoint file for a request, either by rendering it or from an equivalent request.
+     * @param key the digest identifying the request.
+     * @param renderer renders the presentation if required.
+     * @return the PowerPoint file data, which callers must not modify.
+     * @throws TemplateLoadException if the template is invalid.
+     * @throws IOException if there's an error writing the presentation.
+     */
+    abstract byte[] render(String key, Renderer renderer) throws TemplateLoadException, IOException;
+
+    /**
+     * Computes the digest identifying a request.
+     * @param method the name of the method called.
+     * @param args the method arguments, apart from any output stream.
+     * @return the digest.
+     * @throws TemplateLoadException if the template can't be identified.
+     */
+    String key(final String method, final Object... args) throws TemplateLoadException {
+        return ContentHasher.hash(method, settingsSource.getSettings(), args);
+    }
+
+    private XMLSlideShow toSlideShow(final String key, final Renderer renderer) throws TemplateLoadException {
+        try {
+            return new XMLSlideShow(new ByteArrayInputStream(render(key, renderer)));
+        }
+        catch(IOException e) {
+            throw new TemplateLoadException("Error serializing the rendered presentation", e);
+        }
+    }
+
+    @Override
+    public void validateTemplate() throws TemplateLoadException {
+        delegate.validateTemplate();
+    }
+
+    @Override
+    public XMLSlideShow topicmap(final TopicMapData topicmap) throws TemplateLoadException {
+        return toSlideShow(key("topicmap", topicmap), output -> delegate.topicmap(topicmap, output));
+    }
+
+    @Override
+    public XMLSlideShow sunburst(final SunburstData sunburst) throws TemplateLoadException {
+        return toSlideShow(key("sunburst", sunburst), output -> delegate.sunburst(sunburst, output));
+    }
+
+    @Override
+    public XMLSlideShow table(final TableData tableData, final String title) throws TemplateLoadException {
+        return toSlideShow(key("table", tableData, title), output -> delegate.table(tableData, title, output));
+    }
+
+    @Override
+    public XMLSlideShow map(final MapData map, final String title) throws TemplateLoadException {
+        return toSlideShow(key("map", map, title), output -> delegate.map(map, title, output));
+    }
+
+    @Override
+    public XMLSlideShow list(final ListData documentList, final String results, final String sortBy) throws TemplateLoadException {
+        return toSlideShow(key("list", documentList, results, sortBy), output -> delegate.list(documentList, results, sortBy, output));
+    }
+
+    @Override
+    public XMLSlideShow graph(final DategraphData data) throws TemplateLoadException {
+        return toSlideShow(key("graph", data), output -> delegate.graph(data, output));
+    }
+
+    @Override
+    public XMLSlideShow report(final ReportData report, final boolean slidePerVisualizer) throws TemplateLoadException {
+        return toSlideShow(key("report", report, slidePerVisualizer), output -> delegate.report(report, slidePerVisualizer, output));
+    }
+
+    @Override
+    public void topicmap(final TopicMapData topicmap, final OutputStream outputStream) throws TemplateLoadException, IOException {
+        outputStream.write(render(key("topicmap", topicmap), output -> delegate.topicmap(topicmap, output)));
+    }
+
+    @Override
+    public void sunburst(final SunburstData sunburst, final OutputStream outputStream) throws TemplateLoadException, IOException {
+        outputStream.write(render(key("sunburst", sunburst), output -> delegate.sunburst(sunburst, output)));
+    }
+
+    @Override
+    public void table(final TableData tableData, final String title, final OutputStream outputStream) throws TemplateLoadException, IOException {
+        outputStream.write(render(key("table", tableData, title), output -> delegate.table(tableData, title, output)));
+    }
+
+    @Override
+    public void map(final MapData map, final String title, final OutputStream outputStream) throws TemplateLoadException, IOException {
+        outputStream.write(render(key("map", map, title), output -> delegate.map(map, title, output)));
+    }
+
+    @Override
+    public void list(final ListData documentList, final String results, final String sortBy, final OutputStream outputStream) throws TemplateLoadException, IOException {
+        outputStream.write(render(key("list", documentList, results, sortBy), output -> delegate.list(documentList, results, sortBy, output)));
+    }
+
+    @Override
+    public void graph(final DategraphData data, final OutputStream outputStream) throws TemplateLoadException, IOException {
+        outputStream.write(render(key("graph", data), output -> delegate.graph(data, output)));
+    }
+
+    @Override
+    public void report(final ReportData report, final boolean slidePerVisualizer, final OutputStream outputStream) throws TemplateLoadException, IOException {
+        outputStream.write(render(key("report", report, slidePerVisualizer), output -> delegate.report(report, slidePerVisualizer, output)));
+    }
+
+    /**
+     * Renders a presentation with the underlying service.
+     */
+    interface Renderer {
+        /**
+         * @param outputStream where to write the PowerPoint file.
+         * @throws TemplateLoadException if the template is invalid.
+         * @throws IOException if there's an error writing to the output stream.
+         */
+        void render(OutputStream outputStream) throws TemplateLoadException, IOException;
+    }
+}
@@ -22,6 +22,9 @@ import javax.xml.namespace.QName;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.poi.ooxml.POIXMLDocumentPart;
+import org.apache.poi.ooxml.POIXMLException;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.exceptions.NotOfficeXmlFileException;
 import org.apache.poi.xslf.usermodel.XMLSlideShow;
 import org.apache.poi.xslf.usermodel.XSLFChart;
 import org.apache.poi.xslf.usermodel.XSLFGraphicFrame;
@@ -46,9 +49,9 @@ class SlideShowTemplate {
     /** Parsed PowerPoint file from the template. */
     private final XMLSlideShow pptx;
     /** Doughnut chart XML object, cached so we can clone it. */
-    private final ImmutablePair<XSLFChart, CTGraphicalObjectFrame> doughnutChart;
+    private final TemplateChart doughnutChart;
     /** An xy scatterplot chart XML object, cached so we can clone it.  */
-    private final ImmutablePair<XSLFChart, CTGraphicalObjectFrame> graphChart;
+    private final TemplateChart graphChart;
 
     SlideShowTemplate(final InputStream inputStream) throws TemplateLoadException {
         try {
@@ -63,65 +66,92 @@ class SlideShowTemplate {
 
             XSLFSlide slide = slides.get(0);
 
-            doughnutChart = getChart(slide, "First slide should have a doughnut chart");
+            final ImmutablePair<XSLFChart, CTGraphicalObjectFrame> doughnut = getChart(slide, "First slide should have a doughnut chart");
 
-            if (ArrayUtils.isEmpty(doughnutChart.getLeft().getCTChart().getPlotArea().getDoughnutChartArray())) {
+            if (ArrayUtils.isEmpty(doughnut.getLeft().getCTChart().getPlotArea().getDoughnutChartArray())) {
                 throw new TemplateLoadException("First slide has the wrong chart type, should have a doughnut chart");
             }
 
-            graphChart = getChart(slides.get(1), "Second slide should have a time-axis xy scatterplot chart");
+            final ImmutablePair<XSLFChart, CTGraphicalObjectFrame> graph = getChart(slides.get(1), "Second slide should have a time-axis xy scatterplot chart");
 
-            if (ArrayUtils.isEmpty(graphChart.getLeft().getCTChart().getPlotArea().getScatterChartArray())) {
+            if (ArrayUtils.isEmpty(graph.getLeft().getCTChart().getPlotArea().getScatterChartArray())) {
                 throw new TemplateLoadException("Second slide has the wrong chart type, should have a time-axis xy scatterplot chart");
             }
 
+            doughnutChart = new TemplateChart(doughnut.getLeft(), doughnut.getRight());
+            graphChart = new TemplateChart(graph.getLeft(), graph.getRight());
+
             // Remove the slides afterwards
             pptx.removeSlide(1);
             pptx.removeSlide(0);
+
+            // POI leaves the charts' workbooks etc. behind, so remove them now rather than copying them into every
+            //   presentation we render
+            OrphanParts.remove(pptx.getPackage());
         }
-        catch(IOException|IllegalArgumentException e) {
+        catch(IOException|InvalidFormatException|IllegalArgumentException e) {
             throw new TemplateLoadException("Error while loading slide show", e);
         }
     }
 
     /**
-     * Get the doughnut chart from the first slide. Do not modify this object.
-     * @return the doughnut chart from the first slide
+     * Creates a template from an already-parsed presentation and previously extracted charts, e.g. a working copy
+     *   of a cached template.
+     * @param pptx the template presentation, without any slides.
+     * @param doughnutChart the doughnut chart.
+     * @param graphChart the xy scatterplot chart.
      */
-    XSLFChart getDoughnutChart() {
-        return doughnutChart.getLeft();
+    SlideShowTemplate(final XMLSlideShow pptx, final TemplateChart doughnutChart, final TemplateChart graphChart) {
+        this.pptx = pptx;
+        this.doughnutChart = doughnutChart;
+        this.graphChart = graphChart;
     }
 
     /**
-     * Creates a new clone of the doughnut chart XML from the first slide, for inclusion into a slide's shapes.
-     * @param relId the relation id to the chart.
-     * @param shapeId the shape id of the new shape.
-     * @param shapeName the name of your choice for the shape.
-     * @param anchor where the shape should be positioned on screen, or null to use the same position as the cloned chart.
-     * @return a new clone of the doughnut chart XML.
+     * Utility function to load and parse a template file.
+     * @param templateSource the source of the template file.
+     * @return the internal parsed template and chart information.
+     * @throws TemplateLoadException if any errors occurred.
+     */
+    static SlideShowTemplate load(final TemplateSource templateSource) throws TemplateLoadException {
+        try(InputStream inputStream = templateSource.getInputStream()) {
+            return new SlideShowTemplate(inputStream);
+        }
+        catch(IOException e) {
+            throw new TemplateLoadException("Error while loading template", e);
+        }
+        catch(NotOfficeXmlFileException|POIXMLException e) {
+            throw new TemplateLoadException("File is not a valid Office PowerPoint file", e);
+        }
+    }
+
+    /**
+     * Get the doughnut chart from the first slide. Do not modify this object.
+     * @return the doughnut chart from the first slide
      */
-    CTGraphicalObjectFrame getDoughnutChartShapeXML(final String relId, final int shapeId, final String shapeName, final Rectangle2D.Double anchor) {
-        return cloneShapeXML(doughnutChart.getRight(), relId, shapeId, shapeName, anchor);
+    TemplateChart getDoughnutChart() {
+        return doughnutChart;
     }
 
     /**
      * Get the graph xy scatterplot chart from the second slide. Do not modify this object.
      * @return the graph xy scatterplot chart from the second slide
      */
-    XSLFChart getGraphChart() {
-        return graphChart.getLeft();
+    TemplateChart getGraphChart() {
+        return graphChart;
     }
 
     /**
-     * Creates a new clone of the scatterplot chart XML from the second slide, for inclusion into a slide's shapes.
+     * Creates a new clone of a template chart's graphical object XML, for inclusion into a slide's shapes.
+     * @param chart the template chart, i.e. {@link #getDoughnutChart()} or {@link #getGraphChart()}.
      * @param relId the relation id to the chart.
      * @param shapeId the shape id of the new shape.
      * @param shapeName the name of your choice for the shape.
      * @param anchor where the shape should be positioned on screen, or null to use the same position as the cloned chart.
-     * @return a new clone of the scatterplot chart XML.
+     * @return a new clone of the chart's graphical object XML.
      */
-    CTGraphicalObjectFrame getGraphChartShapeXML(final String relId, final int shapeId, final String shapeName, final Rectangle2D.Double anchor) {
-        return cloneShapeXML(graphChart.getRight(), relId, shapeId, shapeName, anchor);
+    CTGraphicalObjectFrame getChartShapeXML(final TemplateChart chart, final String relId, final int shapeId, final String shapeName, final Rectangle2D.Double anchor) {
+        return cloneShapeXML(chart.getFrame(), relId, shapeId, shapeName, anchor);
     }
 
     /**
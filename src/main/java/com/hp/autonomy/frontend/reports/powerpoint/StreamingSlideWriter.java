@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+import javax.xml.namespace.QName;
+import org.apache.poi.util.IOUtils;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.xmlbeans.XmlOptions;
+import org.openxmlformats.schemas.presentationml.x2006.main.CTSlide;
+
+import static org.apache.poi.ooxml.POIXMLTypeLoader.DEFAULT_XML_OPTIONS;
+
+/**
+ * Internal implementation class to write a presentation to an output stream a slide at a time.
+ * POI can only write a whole package at once, so a long list or report would otherwise keep the XML of every slide
+ *   in memory until the end. Instead, each slide's XML is written to the zip as soon as the slide is finished and
+ *   the slide's XML in the presentation is replaced by an empty one.
+ * Once all the slides are finished, {@link #finish(XMLSlideShow)} has POI write the rest of the package to a
+ *   temporary file and copies the parts which haven't already been written from there.
+ * The output stream isn't closed.
+ */
+final class StreamingSlideWriter {
+
+    /** Document element POI saves slides with; slide XML objects are the contents of the element, not the element. */
+    private static final QName SLIDE_ELEMENT = new QName("http://schemas.openxmlformats.org/presentationml/2006/main", "sld");
+
+    private final ZipOutputStream zip;
+
+    /** Zip entry names which have already been written. */
+    private final Set<String> written = new HashSet<>();
+
+    /** The first error writing a slide, which is thrown from {@link #finish(XMLSlideShow)}. */
+    private IOException error;
+
+    StreamingSlideWriter(final OutputStream outputStream) {
+        this.zip = new ZipOutputStream(outputStream);
+    }
+
+    /**
+     * Writes a finished slide's XML to the zip and releases it from the presentation.
+     * Nothing can be added to the slide afterwards; its relationships are written by {@link #finish(XMLSlideShow)}.
+     * Errors are kept until {@link #finish(XMLSlideShow)}, so this can be used where checked exceptions can't be thrown.
+     * @param slide the finished slide.
+     */
+    void writeSlide(final XSLFSlide slide) {
+        if (error != null) {
+            return;
+        }
+
+        final String name = slide.getPackagePart().getPartName().getName().substring(1);
+
+        final XmlOptions xmlOptions = new XmlOptions(DEFAULT_XML_OPTIONS);
+        xmlOptions.setSaveSyntheticDocumentElement(SLIDE_ELEMENT);
+
+        try {
+            zip.putNextEntry(new ZipEntry(name));
+            slide.getXmlObject().save(zip, xmlOptions);
+            zip.closeEntry();
+        }
+        catch(IOException e) {
+            error = e;
+            return;
+        }
+
+        written.add(name);
+
+        slide.getXmlObject().set(CTSlide.Factory.newInstance());
+        // the sheet's shape list still refers to the old XML
+        ChartFrames.reloadShapes(slide);
+    }
+
+    /**
+     * Writes the rest of the presentation and finishes the zip, without closing the output stream.
+     * @param ppt the presentation, with every slide finished.
+     * @throws IOException if there was an error writing a slide earlier, or writing the rest of the presentation.
+     */
+    void finish(final XMLSlideShow ppt) throws IOException {
+        if (error != null) {
+            throw error;
+        }
+
+        final Path file = Files.createTempFile("pptx-", ".pptx");
+
+        try {
+            try(OutputStream output = Files.newOutputStream(file)) {
+                ppt.write(output);
+            }
+
+            try(ZipFile rest = new ZipFile(file.toFile())) {
+                final Enumeration<? extends ZipEntry> entries = rest.entries();
+
+                while(entries.hasMoreElements()) {
+                    final ZipEntry entry = entries.nextElement();
+
+                    if (written.add(entry.getName())) {
+                        zip.putNextEntry(new ZipEntry(entry.getName()));
+
+                        try(InputStream input = rest.getInputStream(entry)) {
+                            IOUtils.copy(input, zip);
+                        }
+
+                        zip.closeEntry();
+                    }
+                }
+            }
+
+            zip.finish();
+        }
+        finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.poi.ooxml.POIXMLDocumentPart;
+import org.apache.poi.util.IOUtils;
+import org.apache.poi.xslf.usermodel.XSLFChart;
+import org.openxmlformats.schemas.drawingml.x2006.chart.CTChartSpace;
+import org.openxmlformats.schemas.presentationml.x2006.main.CTGraphicalObjectFrame;
+
+/**
+ * Internal implementation class holding a detached copy of a chart from the template; i.e. the chart XML, the
+ *   graphical object which represented it on its slide and the raw data of every part the chart refers to.
+ * Instances are never modified after construction, so they can be shared between renders; callers must copy the
+ *   XML objects before changing them.
+ */
+class TemplateChart {
+
+    /** Path of the chart part within the template package, e.g. /ppt/charts/chart1.xml */
+    private final String partName;
+    /** The chart XML. */
+    private final CTChartSpace chartSpace;
+    /** The graphical object which represented the chart on its slide. */
+    private final CTGraphicalObjectFrame frame;
+    /** Every part referred to by the chart, e.g. colors1.xml, style1.xml and the embedded workbook. */
+    private final List<RelatedPart> relatedParts;
+
+    TemplateChart(final XSLFChart chart, final CTGraphicalObjectFrame frame) throws IOException {
+        this.partName = chart.getPackagePart().getPartName().getURI().getPath();
+        this.chartSpace = (CTChartSpace) chart.getCTChartSpace().copy();
+        this.frame = (CTGraphicalObjectFrame) frame.copy();
+
+        final List<RelatedPart> parts = new ArrayList<>();
+
+        for(final POIXMLDocumentPart.RelationPart part : chart.getRelationParts()) {
+            try(InputStream input = part.getDocumentPart().getPackagePart().getInputStream()) {
+                parts.add(new RelatedPart(
+                    part.getRelationship().getRelationshipType(),
+                    part.getRelationship().getTargetURI().getPath(),
+                    part.getDocumentPart().getPackagePart().getContentType(),
+                    IOUtils.toByteArray(input)
+                ));
+            }
+        }
+
+        this.relatedParts = Collections.unmodifiableList(parts);
+    }
+
+    /**
+     * Get the path of the chart part in the template package.
+     * @return the chart part path.
+     */
+    String getPartName() {
+        return partName;
+    }
+
+    /**
+     * Get the chart XML. Do not modify this object, take a copy instead.
+     * @return the chart XML.
+     */
+    CTChartSpace getChartSpace() {
+        return chartSpace;
+    }
+
+    /**
+     * Get the graphical object which represented the chart on the template slide. Do not modify this object.
+     * @return the graphical object XML.
+     */
+    CTGraphicalObjectFrame getFrame() {
+        return frame;
+    }
+
+    /**
+     * Get the parts the chart refers to, in relationship order.
+     * @return the related parts.
+     */
+    List<RelatedPart> getRelatedParts() {
+        return relatedParts;
+    }
+
+    /**
+     * A part referred to by the template chart, e.g. the colour or style XML or the embedded workbook.
+     */
+    static class RelatedPart {
+        /** The relationship type from the chart to the part. */
+        private final String relationshipType;
+        /** The relationship target path, used to generate names for the copies. */
+        private final String targetPath;
+        /** The part content type. */
+        private final String contentType;
+        /** The raw part data. */
+        private final byte[] data;
+
+        RelatedPart(final String relationshipType, final String targetPath, final String contentType, final byte[] data) {
+            this.relationshipType = relationshipType;
+            this.targetPath = targetPath;
+            this.contentType = contentType;
+            this.data = data;
+        }
+
+        String getRelationshipType() {
+            return relationshipType;
+        }
+
+        String getTargetPath() {
+            return targetPath;
+        }
+
+        String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * Get the raw part data. Do not modify the returned array.
+         * @return the part data.
+         */
+        byte[] getData() {
+            return data;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+
+/**
+ * Internal implementation class holding an immutable, already-validated copy of a template, which can create
+ *   per-render working copies without repeating the template validation and chart lookups.
+ */
+class TemplatePrototype {
+
+    /** The template package with the chart slides already removed. */
+    private final byte[] packageData;
+    /** The doughnut chart extracted from the first template slide. */
+    private final TemplateChart doughnutChart;
+    /** The xy scatterplot chart extracted from the second template slide. */
+    private final TemplateChart graphChart;
+
+    /**
+     * Creates a prototype from a freshly-loaded template. The template shouldn't be used afterwards.
+     * @param template the loaded template.
+     * @throws TemplateLoadException if we can't serialize the template.
+     */
+    TemplatePrototype(final SlideShowTemplate template) throws TemplateLoadException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+        try {
+            template.getSlideShow().write(baos);
+        }
+        catch(IOException e) {
+            throw new TemplateLoadException("Error while caching template", e);
+        }
+
+        this.packageData = baos.toByteArray();
+        this.doughnutChart = template.getDoughnutChart();
+        this.graphChart = template.getGraphChart();
+    }
+
+    /**
+     * Creates a new working copy of the template, which can be freely modified.
+     * @return a new template with its own presentation, sharing the read-only chart information.
+     * @throws TemplateLoadException if we can't read the cached template.
+     */
+    SlideShowTemplate newSlideShowTemplate() throws TemplateLoadException {
+        try {
+            return new SlideShowTemplate(new XMLSlideShow(new ByteArrayInputStream(packageData)), doughnutChart, graphChart);
+        }
+        catch(IOException e) {
+            throw new TemplateLoadException("Error while copying cached template", e);
+        }
+    }
+}
@@ -15,7 +15,6 @@
 package com.hp.autonomy.frontend.reports.powerpoint;
 
 import com.hp.autonomy.frontend.reports.powerpoint.dto.Anchor;
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -23,7 +22,6 @@ import lombok.NoArgsConstructor;
  * Template settings which affect rendering, set on a service-wide level.
  */
 @Data
-@AllArgsConstructor
 @NoArgsConstructor
 public class TemplateSettings {
 
@@ -32,4 +30,64 @@ public class TemplateSettings {
      * space for your own graphics/logos in the master slide.
      */
     private Anchor anchor = new Anchor();
+
+    /**
+     * How many list thumbnails and map images to fetch at once before laying out a list or report.
+     * Values less than 2 disable prefetching, so images are fetched one at a time as they're drawn; this is the default.
+     * Prefetching calls the image source from worker threads, so only enable it if your image source is thread-safe
+     *   and doesn't depend on the calling thread, e.g. on thread-local security context.
+     */
+    private int imagePrefetchThreads = 0;
+
+    /**
+     * How long to allow for fetching each prefetched image, in milliseconds; images which take longer are skipped.
+     */
+    private long imagePrefetchTimeoutMillis = 30000;
+
+    /**
+     * If true, prefetched images are held in direct buffers outside the heap until they're embedded, rather than
+     *   keeping e.g. hundreds of list thumbnails on the heap for the whole time a presentation is being built.
+     */
+    private boolean imagePrefetchOffHeap = false;
+
+    /**
+     * If positive, list thumbnails and map images larger than needed are shrunk to this resolution, in dots per inch,
+     *   at the size they're drawn on the slide before they're embedded. Zero or negative values embed images as they are.
+     */
+    private int imageResampleDpi = 0;
+
+    /**
+     * JPEG quality from 0 to 1 used when re-encoding shrunk images which don't have transparency.
+     */
+    private float imageResampleQuality = 0.85f;
+
+    /**
+     * If positive, date graphs with more timestamps than this are downsampled to roughly this many points before
+     *   they're written, keeping the shape of each series. Zero or negative values write every point.
+     */
+    private int dategraphMaxPoints = 0;
+
+    /**
+     * How many of a report's children to lay out at once, e.g. the number of cores. Each child's chart, list layout,
+     *   image and measured text are built on worker threads shared by the service, and then added to the slides in
+     *   order, so the result is the same as building them one at a time.
+     * Since the image source is then called from the worker threads, it must be thread-safe; see {@link ImageSource}.
+     * Values less than 2 lay out each child on the calling thread.
+     */
+    private int reportThreads = 1;
+
+    /**
+     * If true, the parts each chart refers to which are the same for every chart, e.g. its colors and style, are only
+     *   written once per presentation and shared by all the charts based on the same template chart; rather than each
+     *   chart getting its own copy. Each chart's embedded workbook is always its own.
+     */
+    private boolean shareChartParts = false;
+
+    /**
+     * Constructor for the TemplateSettings, using default values for everything except the anchor.
+     * @param anchor anchor points which control how much of the powerpoint area we'll draw on.
+     */
+    public TemplateSettings(final Anchor anchor) {
+        this.anchor = anchor;
+    }
 }
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFSheet;
+import org.apache.poi.xslf.usermodel.XSLFTextBox;
+import org.apache.poi.xslf.usermodel.XSLFTextParagraph;
+import org.apache.poi.xslf.usermodel.XSLFTextRun;
+import org.apache.poi.xslf.usermodel.XSLFTextShape;
+
+/**
+ * Internal implementation class holding the settings every new plain text box (or freeform shape) gets from the
+ *   presentation, i.e. its paragraph settings, default font and insets; so text can be measured with
+ *   {@link TextMeasurer} before its shape is created, or without creating one at all.
+ */
+class TextBoxStyle {
+
+    /** The default paragraph settings. */
+    private final TextMeasurer.ParagraphStyle paragraphStyle;
+
+    /** The default font family. */
+    private final String fontFamily;
+
+    /** The default font size. */
+    private final double fontSize;
+
+    /** Total of the left and right insets. */
+    private final double insets;
+
+    private TextBoxStyle(final TextMeasurer.ParagraphStyle paragraphStyle, final String fontFamily, final double fontSize, final double insets) {
+        this.paragraphStyle = paragraphStyle;
+        this.fontFamily = fontFamily;
+        this.fontSize = fontSize;
+        this.insets = insets;
+    }
+
+    /**
+     * Resolves the text box settings from a scratch text box, which is removed again afterwards.
+     * Plain text boxes take their defaults from the presentation rather than the sheet, so any sheet will do; if we
+     *   don't have a slide, {@link #of(XMLSlideShow)} uses a layout instead of creating one.
+     * @param sheet the sheet to create the scratch text box on.
+     * @return the text box settings.
+     */
+    static TextBoxStyle of(final XSLFSheet sheet) {
+        final XSLFTextBox scratchBox = sheet.createTextBox();
+        scratchBox.clearText();
+        return of(sheet, scratchBox);
+    }
+
+    /**
+     * Resolves the text box settings using the presentation's first slide layout.
+     * @param ppt the presentation.
+     * @return the text box settings.
+     */
+    static TextBoxStyle of(final XMLSlideShow ppt) {
+        return of(getLayout(ppt));
+    }
+
+    /**
+     * Resolves the settings of new freeform shapes, e.g. the topic map's, using the presentation's first slide layout.
+     * @param ppt the presentation.
+     * @return the freeform shape settings.
+     */
+    static TextBoxStyle ofFreeform(final XMLSlideShow ppt) {
+        final XSLFSheet layout = getLayout(ppt);
+        return of(layout, layout.createFreeform());
+    }
+
+    private static XSLFSheet getLayout(final XMLSlideShow ppt) {
+        return ppt.getSlideMasters().get(0).getSlideLayouts()[0];
+    }
+
+    private static TextBoxStyle of(final XSLFSheet sheet, final XSLFTextShape scratchShape) {
+        final XSLFTextParagraph scratchPara = scratchShape.addNewTextParagraph();
+        final XSLFTextRun scratchRun = scratchPara.addNewTextRun();
+        final TextMeasurer.ParagraphStyle paragraphStyle = TextMeasurer.ParagraphStyle.of(scratchPara);
+        final Double runFontSize = scratchRun.getFontSize();
+
+        final TextBoxStyle style = new TextBoxStyle(
+                paragraphStyle,
+                scratchRun.getFontFamily(),
+                runFontSize == null ? paragraphStyle.getDefaultFontSize() : runFontSize,
+                scratchShape.getLeftInset() + scratchShape.getRightInset()
+        );
+
+        sheet.removeShape(scratchShape);
+        return style;
+    }
+
+    /**
+     * Get the paragraph settings new paragraphs have by default.
+     * @return the paragraph style.
+     */
+    TextMeasurer.ParagraphStyle getParagraphStyle() {
+        return paragraphStyle;
+    }
+
+    /**
+     * Get the font family new text runs have by default.
+     * @return the font family, as returned by XSLFTextRun.getFontFamily().
+     */
+    String getFontFamily() {
+        return fontFamily;
+    }
+
+    /**
+     * Get the font size new text runs have by default.
+     * @return the font size, in points.
+     */
+    double getFontSize() {
+        return fontSize;
+    }
+
+    /**
+     * Get the width available for text in a text box.
+     * @param boxWidth the width of the text box, in PowerPoint points.
+     * @return the text width, as per {@link TextMeasurer#getTextWidth}.
+     */
+    double getTextWidth(final double boxWidth) {
+        return boxWidth - insets;
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+/**
+ * Internal implementation class holding the measured layout of a TextData object, i.e. the text of each run which fits
+ *   into its text box; so it can be measured without a presentation and its text box created afterwards.
+ */
+class TextLayout {
+
+    /** The text of each run to draw, in order; runs which don't fit at all are left out. */
+    final String[] runs;
+
+    /** Whether the text was truncated, in which case the text box should shrink its text on overflow. */
+    final boolean truncated;
+
+    TextLayout(final String[] runs, final boolean truncated) {
+        this.runs = runs;
+        this.truncated = truncated;
+    }
+}
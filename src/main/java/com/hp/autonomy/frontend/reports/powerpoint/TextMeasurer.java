@@ -0,0 +1,455 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.LineBreakMeasurer;
+import java.awt.font.TextAttribute;
+import java.awt.font.TextLayout;
+import java.awt.image.BufferedImage;
+import java.text.AttributedString;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.poi.xslf.usermodel.XSLFTextParagraph;
+import org.apache.poi.xslf.usermodel.XSLFTextShape;
+
+/**
+ * Internal implementation class to measure the height of text without building it as PowerPoint XML.
+ *
+ * XSLFTextShape.getTextHeight() resolves every run and paragraph property through the slide, layout and master
+ *   styles and sets up a new drawing context on every call, which makes it expensive to call repeatedly while trying
+ *   different text or font sizes. This class follows the same line breaking and line height rules as POI's
+ *   DrawTextShape and DrawTextParagraph, but works on plain values which callers resolve once per shape; the AWT
+ *   fonts are cached by family, size and style so their metrics are shared between calls.
+ *
+ * Only the features we use are supported: left-aligned or centred text with word wrap, no bullets and no tabs.
+ * All methods are thread-safe.
+ */
+final class TextMeasurer {
+
+    /** Same rendering context as POI's dry-run layout, i.e. a fresh graphics context on a 1x1 image. */
+    private static final FontRenderContext FONT_RENDER_CONTEXT;
+
+    static {
+        final Graphics2D graphics = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+        FONT_RENDER_CONTEXT = graphics.getFontRenderContext();
+        graphics.dispose();
+    }
+
+    /** AWT fonts, keyed by family, size and style. */
+    private static final ConcurrentMap<FontKey, Font> FONTS = new ConcurrentHashMap<>();
+
+    private TextMeasurer() {}
+
+    /**
+     * Get the width available for text in a shape, i.e. the anchor width without the left and right insets.
+     * @param shape the text shape.
+     * @return the text width in PowerPoint points.
+     */
+    static double getTextWidth(final XSLFTextShape shape) {
+        return shape.getAnchor().getWidth() - shape.getLeftInset() - shape.getRightInset();
+    }
+
+    /**
+     * Measures the height of a single paragraph, equivalent to XSLFTextShape.getTextHeight() on a shape containing
+     *   only that paragraph.
+     * @param textWidth the width available for text, as per {@link #getTextWidth(XSLFTextShape)}.
+     * @param paragraph the paragraph to measure.
+     * @return the text height in PowerPoint points.
+     */
+    static double getTextHeight(final double textWidth, final Paragraph paragraph) {
+        return getTextHeight(textWidth, Collections.singletonList(paragraph));
+    }
+
+    /**
+     * Measures the height of a sequence of paragraphs, equivalent to XSLFTextShape.getTextHeight() on a shape
+     *   containing those paragraphs.
+     * @param textWidth the width available for text, as per {@link #getTextWidth(XSLFTextShape)}.
+     * @param paragraphs the paragraphs to measure.
+     * @return the text height in PowerPoint points.
+     */
+    static double getTextHeight(final double textWidth, final List<Paragraph> paragraphs) {
+        double y = 0;
+
+        for(int ii = 0; ii < paragraphs.size(); ++ii) {
+            final Paragraph paragraph = paragraphs.get(ii);
+            final ParagraphStyle style = paragraph.style;
+            final List<Line> lines = breakText(textWidth, paragraph);
+
+            if (lines.isEmpty()) {
+                continue;
+            }
+
+            if (ii == 0) {
+                y += lines.get(0).leading;
+            }
+            else {
+                y += spacing(style.spaceBefore, lines.get(0).height);
+            }
+
+            Line previous = null;
+
+            for(final Line line : lines) {
+                // As per POI's DrawTextParagraph, every line but the very first of the text is placed relative to the
+                //   previous line's baseline rather than its bottom
+                if (ii > 0 || previous != null) {
+                    y -= line.leading + (previous == null ? 0 : previous.descent);
+                    y += spacing(style.lineSpacing, line.height);
+                    y -= line.ascent;
+                }
+
+                y += line.height;
+                previous = line;
+            }
+
+            if (ii < paragraphs.size() - 1) {
+                y += spacing(style.spaceAfter, lines.get(lines.size() - 1).height);
+            }
+        }
+
+        return y;
+    }
+
+    /**
+     * Converts a PowerPoint spacing value to points.
+     * @param spacing positive values are a percentage of the line height, negative values are absolute points.
+     * @param lineHeight the line height.
+     * @return the spacing in points.
+     */
+    private static double spacing(final double spacing, final double lineHeight) {
+        return spacing > 0 ? spacing * 0.01 * lineHeight : -spacing;
+    }
+
+    /**
+     * Splits a paragraph into lines.
+     * @param textWidth the width available for text.
+     * @param paragraph the paragraph.
+     * @return the line heights.
+     */
+    private static List<Line> breakText(final double textWidth, final Paragraph paragraph) {
+        final StringBuilder text = new StringBuilder();
+        final List<Run> runs = new ArrayList<>(paragraph.runs.size());
+
+        for(final Run run : paragraph.runs) {
+            if (StringUtils.isNotEmpty(run.text)) {
+                text.append(run.text);
+                runs.add(run);
+            }
+        }
+
+        final AttributedString attributed;
+
+        if (text.length() == 0) {
+            // an empty paragraph still takes up a line at the default font size
+            text.append(' ');
+            attributed = new AttributedString(" ");
+            attributed.addAttribute(TextAttribute.FONT, getFont(paragraph.style.defaultFontFamily, paragraph.style.defaultFontSize, false, false));
+        }
+        else {
+            attributed = new AttributedString(text.toString());
+
+            int start = 0;
+            for(final Run run : runs) {
+                final int end = start + run.text.length();
+                final String family = run.fontFamily == null ? paragraph.style.defaultFontFamily : run.fontFamily;
+                attributed.addAttribute(TextAttribute.FONT, getFont(family, run.fontSize, run.bold, run.italic), start, end);
+                start = end;
+            }
+        }
+
+        final int endIndex = text.length();
+        final LineBreakMeasurer measurer = new LineBreakMeasurer(attributed.getIterator(), FONT_RENDER_CONTEXT);
+        final List<Line> lines = new ArrayList<>();
+
+        for(;;) {
+            final int startIndex = measurer.getPosition();
+
+            // POI adds a point to compensate for rounding errors
+            double wrappingWidth = paragraph.getWrappingWidth(textWidth, lines.isEmpty()) + 1;
+            if (wrappingWidth < 0) {
+                wrappingWidth = 1;
+            }
+
+            int nextBreak = text.indexOf("\n", startIndex + 1);
+            if (nextBreak == -1) {
+                nextBreak = endIndex;
+            }
+
+            TextLayout layout = measurer.nextLayout((float) wrappingWidth, nextBreak, true);
+            if (layout == null) {
+                // the next word doesn't fit on a line by itself, so break it mid-word
+                layout = measurer.nextLayout((float) wrappingWidth, nextBreak, false);
+            }
+
+            if (layout == null) {
+                break;
+            }
+
+            final int lineEnd = measurer.getPosition();
+            if (lineEnd < endIndex && text.charAt(lineEnd) == '\n') {
+                measurer.setPosition(lineEnd + 1);
+            }
+
+            lines.add(new Line(layout));
+
+            if (lineEnd == endIndex) {
+                break;
+            }
+        }
+
+        return lines;
+    }
+
+    /**
+     * Get a font the same way as POI's DrawTextParagraph, i.e. from the family, size, weight and posture attributes.
+     * POI also resolves the family through the DrawFontManager, with its font mapping and fallback, but only into a
+     *   FAMILY attribute alongside the FONT attribute it builds here; AWT's text layout uses the FONT attribute when
+     *   both are present, so the mapping doesn't change the font the text is laid out with. A family which isn't
+     *   installed resolves to AWT's default font, just as it does in POI.
+     * @param family the font family.
+     * @param size the font size in points.
+     * @param bold whether the font is bold.
+     * @param italic whether the font is italic.
+     * @return the font.
+     */
+    static Font getFont(final String family, final double size, final boolean bold, final boolean italic) {
+        return FONTS.computeIfAbsent(new FontKey(family, (float) size, bold, italic), key -> {
+            final Map<TextAttribute, Object> attributes = new HashMap<>();
+
+            if (key.family != null) {
+                attributes.put(TextAttribute.FAMILY, key.family);
+            }
+
+            attributes.put(TextAttribute.SIZE, key.size);
+
+            if (key.bold) {
+                attributes.put(TextAttribute.WEIGHT, TextAttribute.WEIGHT_BOLD);
+            }
+
+            if (key.italic) {
+                attributes.put(TextAttribute.POSTURE, TextAttribute.POSTURE_OBLIQUE);
+            }
+
+            return new Font(attributes);
+        });
+    }
+
+    /** A single line of a paragraph. */
+    private static class Line {
+        private final float ascent;
+        private final float descent;
+        /** The line leading, which is also added before the first line of text. */
+        private final float leading;
+        /** The line height, including leading. */
+        private final float height;
+
+        private Line(final TextLayout layout) {
+            ascent = layout.getAscent();
+            descent = layout.getDescent();
+            // fonts often report zero leading; POI's DrawTextFragment uses 15% of the font height instead
+            leading = layout.getLeading() == 0 ? (float) ((ascent + descent) * 0.15) : layout.getLeading();
+            height = ascent + descent + leading;
+        }
+    }
+
+    /** Cache key for fonts. */
+    private static class FontKey {
+        private final String family;
+        private final float size;
+        private final boolean bold;
+        private final boolean italic;
+
+        private FontKey(final String family, final float size, final boolean bold, final boolean italic) {
+            this.family = family;
+            this.size = size;
+            this.bold = bold;
+            this.italic = italic;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof FontKey)) {
+                return false;
+            }
+
+            final FontKey other = (FontKey) o;
+            return size == other.size && bold == other.bold && italic == other.italic && Objects.equals(family, other.family);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(family, size, bold, italic);
+        }
+    }
+
+    /**
+     * Paragraph properties which affect layout, resolved once from a real paragraph so the template defaults are
+     *   taken into account.
+     */
+    static class ParagraphStyle {
+        /** Left margin in points. */
+        private final double leftMargin;
+        /** First line indent in points. */
+        private final double indent;
+        /** Line spacing; positive values are a percentage of the line height, negative values are absolute points. */
+        private final double lineSpacing;
+        /** Space before the paragraph, as per lineSpacing. */
+        private final double spaceBefore;
+        /** Space after the paragraph, as per lineSpacing. */
+        private final double spaceAfter;
+        /** The font size used to measure empty paragraphs. */
+        private final double defaultFontSize;
+        /** The font family used to measure empty paragraphs and runs without a family. */
+        private final String defaultFontFamily;
+
+        ParagraphStyle(final double leftMargin, final double indent, final double lineSpacing, final double spaceBefore, final double spaceAfter, final double defaultFontSize, final String defaultFontFamily) {
+            this.leftMargin = leftMargin;
+            this.indent = indent;
+            this.lineSpacing = lineSpacing;
+            this.spaceBefore = spaceBefore;
+            this.spaceAfter = spaceAfter;
+            this.defaultFontSize = defaultFontSize;
+            this.defaultFontFamily = defaultFontFamily;
+        }
+
+        /**
+         * Resolves the layout properties of a paragraph. This is as expensive as measuring it with POI, so it should be
+         *   done once and the result reused.
+         * @param paragraph the paragraph.
+         * @return the paragraph style.
+         */
+        static ParagraphStyle of(final XSLFTextParagraph paragraph) {
+            final Double leftMargin = paragraph.getLeftMargin();
+            final Double indent = paragraph.getIndent();
+            final Double lineSpacing = paragraph.getLineSpacing();
+            final Double spaceBefore = paragraph.getSpaceBefore();
+            final Double spaceAfter = paragraph.getSpaceAfter();
+            final Double defaultFontSize = paragraph.getDefaultFontSize();
+
+            return new ParagraphStyle(
+                    leftMargin == null ? 0 : leftMargin,
+                    indent == null ? 0 : indent,
+                    lineSpacing == null ? 100 : lineSpacing,
+                    spaceBefore == null ? 0 : spaceBefore,
+                    spaceAfter == null ? 0 : spaceAfter,
+                    defaultFontSize == null ? 12 : defaultFontSize,
+                    paragraph.getDefaultFontFamily());
+        }
+
+        /**
+         * Get the font size used for runs which don't specify one.
+         * @return the default font size in points.
+         */
+        double getDefaultFontSize() {
+            return defaultFontSize;
+        }
+
+        /**
+         * Get a copy of this style with a different left margin.
+         * @param leftMargin the left margin in points.
+         * @return the new style.
+         */
+        ParagraphStyle withLeftMargin(final double leftMargin) {
+            return new ParagraphStyle(leftMargin, indent, lineSpacing, spaceBefore, spaceAfter, defaultFontSize, defaultFontFamily);
+        }
+    }
+
+    /**
+     * A paragraph to measure; a sequence of runs with a common paragraph style.
+     */
+    static class Paragraph {
+        private final ParagraphStyle style;
+        private final List<Run> runs = new ArrayList<>();
+
+        Paragraph(final ParagraphStyle style) {
+            this.style = style;
+        }
+
+        /**
+         * Adds a run of text to the paragraph.
+         * @param text the text, which may contain '\n' newlines.
+         * @param fontFamily the font family, as returned by XSLFTextRun.getFontFamily().
+         * @param fontSize the font size in points.
+         * @param bold whether the text is bold.
+         * @param italic whether the text is italic.
+         * @return the new run.
+         */
+        Run addRun(final String text, final String fontFamily, final double fontSize, final boolean bold, final boolean italic) {
+            final Run run = new Run(text, fontFamily, fontSize, bold, italic);
+            runs.add(run);
+            return run;
+        }
+
+        /**
+         * Get the width available for a line of the paragraph, as per POI's DrawTextParagraph.
+         * @param textWidth the width available for text in the shape.
+         * @param firstLine whether this is the first line of the paragraph.
+         * @return the wrapping width in points.
+         */
+        private double getWrappingWidth(final double textWidth, final boolean firstLine) {
+            double width = textWidth - style.leftMargin;
+
+            if (firstLine) {
+                if (style.indent > 0) {
+                    width -= style.indent;
+                }
+                else if (style.indent < 0) {
+                    width += style.leftMargin;
+                }
+            }
+
+            return width;
+        }
+    }
+
+    /**
+     * A run of text with a single font.
+     */
+    static class Run {
+        private String text;
+        private final String fontFamily;
+        private final double fontSize;
+        private final boolean bold;
+        private final boolean italic;
+
+        private Run(final String text, final String fontFamily, final double fontSize, final boolean bold, final boolean italic) {
+            this.text = text;
+            this.fontFamily = fontFamily;
+            this.fontSize = fontSize;
+            this.bold = bold;
+            this.italic = italic;
+        }
+
+        /**
+         * Replaces the run's text, e.g. while trying shorter versions of it.
+         * @param text the new text.
+         */
+        void setText(final String text) {
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Internal implementation class to create thread factories for the library's worker threads.
+ * Virtual threads are used where the JVM supports them (Java 21 onwards); they're looked up by reflection so the
+ *   library still runs on older JVMs. On Java 19 and 20 the methods exist but are a preview API which throws unless
+ *   preview features are enabled, so we check support by building a factory once rather than by looking for them.
+ */
+final class ThreadFactories {
+
+    /** Thread.ofVirtual(), or null if virtual threads aren't supported or can't be used. */
+    private static final Method OF_VIRTUAL;
+    /** Thread.Builder.name(String, long). */
+    private static final Method NAME;
+    /** Thread.Builder.factory(). */
+    private static final Method FACTORY;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+
+        try {
+            final Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = builder.getMethod("name", String.class, long.class);
+            factory = builder.getMethod("factory");
+
+            // throws on Java 19 and 20 unless preview features are enabled
+            factory.invoke(name.invoke(ofVirtual.invoke(null), "", 1L));
+        }
+        catch(ReflectiveOperationException | RuntimeException | LinkageError e) {
+            ofVirtual = null;
+        }
+
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+    }
+
+    private ThreadFactories() {}
+
+    /**
+     * @return whether this JVM supports virtual threads, and they can be used without preview features enabled.
+     */
+    static boolean isVirtualSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Creates a factory for virtual threads.
+     * @param prefix prefix for the thread names, which are numbered from 1.
+     * @return the thread factory.
+     * @throws UnsupportedOperationException if this JVM doesn't support virtual threads.
+     */
+    static ThreadFactory virtual(final String prefix) {
+        if(OF_VIRTUAL == null) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21 or later, or preview features enabled on Java 19 or 20");
+        }
+
+        try {
+            final Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), prefix, 1L);
+            return (ThreadFactory) FACTORY.invoke(builder);
+        }
+        catch(ReflectiveOperationException | RuntimeException e) {
+            throw new UnsupportedOperationException("Virtual threads aren't available", e);
+        }
+    }
+
+    /**
+     * Creates a factory for daemon platform threads.
+     * @param prefix prefix for the thread names, which are numbered from 1.
+     * @return the thread factory.
+     */
+    static ThreadFactory daemon(final String prefix) {
+        final AtomicInteger counter = new AtomicInteger();
+
+        return runnable -> {
+            final Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Creates a factory for virtual threads if they're supported, otherwise daemon platform threads; for threads
+     *   which spend most of their time waiting on I/O.
+     * @param prefix prefix for the thread names, which are numbered from 1.
+     * @return the thread factory.
+     */
+    static ThreadFactory forBlockingIo(final String prefix) {
+        return isVirtualSupported() ? virtual(prefix) : daemon(prefix);
+    }
+}
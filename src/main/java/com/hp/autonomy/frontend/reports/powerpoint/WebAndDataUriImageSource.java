@@ -11,18 +11,30 @@
  * liable for technical or editorial errors or omissions contained herein. The
  * information contained herein is subject to change without notice.
  */
+
 package com.hp.autonomy.frontend.reports.powerpoint;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.apache.poi.sl.usermodel.PictureData;
-import org.apache.poi.util.IOUtils;
 
 /**
  * This ImageSource implementation fetches http: and https: URLs from the internet for embedding and treats all other
@@ -31,9 +43,66 @@ import org.apache.poi.util.IOUtils;
  * To mitigate attempts to use this service as an open proxy to attack intranet sites, we require that web URLs have a
  *   path which end in '.jpeg', '.jpg', '.png' or '.gif'. You may want to override allowHttpURI to customize
  *   this if your service has better knowledge of which URIs are safe to visit.
+ *
+ * Connections are pooled and reused between requests (using HTTP/2 where the server supports it). Each download is
+ *   bounded by a connect timeout, an overall timeout and a maximum image size, and the number of concurrent
+ *   downloads from any one host is limited, so a slow or hostile image server can't tie up the rendering threads or
+ *   exhaust the heap.
  */
 public class WebAndDataUriImageSource extends DataUriImageSource {
 
+    /** Default time allowed to establish a connection. */
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    /** Default time allowed for the whole download, including connecting. */
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+    /** Default maximum image size in bytes. */
+    public static final int DEFAULT_MAX_IMAGE_BYTES = 20 * 1024 * 1024;
+    /** Default maximum number of concurrent downloads from a single host. */
+    public static final int DEFAULT_MAX_CONCURRENT_PER_HOST = 8;
+
+    /** The shared HTTP client, which pools connections. */
+    private final HttpClient httpClient;
+
+    /** Time allowed for the whole download. */
+    private final Duration timeout;
+
+    /** Maximum image size in bytes. */
+    private final int maxImageBytes;
+
+    /** Maximum number of concurrent downloads from a single host. */
+    private final int maxConcurrentPerHost;
+
+    /** Permits for concurrent downloads, keyed by host and port; only hosts with downloads in progress are kept. */
+    private final Map<String, HostPermits> hostPermits = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor for the WebAndDataUriImageSource using the default timeouts and limits.
+     */
+    public WebAndDataUriImageSource() {
+        this(DEFAULT_CONNECT_TIMEOUT, DEFAULT_TIMEOUT, DEFAULT_MAX_IMAGE_BYTES, DEFAULT_MAX_CONCURRENT_PER_HOST);
+    }
+
+    /**
+     * Constructor for the WebAndDataUriImageSource.
+     * @param connectTimeout time allowed to establish a connection.
+     * @param timeout time allowed for the whole download of each image, including waiting for a per-host permit.
+     * @param maxImageBytes the largest image to accept, in bytes.
+     * @param maxConcurrentPerHost the maximum number of concurrent downloads from a single host.
+     */
+    public WebAndDataUriImageSource(final Duration connectTimeout, final Duration timeout, final int maxImageBytes, final int maxConcurrentPerHost) {
+        if(maxImageBytes <= 0 || maxConcurrentPerHost <= 0) {
+            throw new IllegalArgumentException("maxImageBytes and maxConcurrentPerHost must be positive");
+        }
+
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.timeout = timeout;
+        this.maxImageBytes = maxImageBytes;
+        this.maxConcurrentPerHost = maxConcurrentPerHost;
+    }
+
     /**
      * Accepts HTTP/HTTPs URLs or base64-encoded image data and converts them to image data.
      * @param imageId the image identifier.
@@ -47,22 +116,7 @@ public class WebAndDataUriImageSource extends DataUriImageSource {
                 final URI uri = new URI(imageId);
 
                 if(allowHttpURI(uri)) {
-                    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
-                    final HttpURLConnection conn = (HttpURLConnection) new URL(imageId).openConnection();
-                    conn.connect();
-                    final String contentType = conn.getContentType();
-
-                    for(final PictureData.PictureType pictureType : PictureData.PictureType.values()) {
-                        if(pictureType.contentType.equalsIgnoreCase(contentType)) {
-                            try(final InputStream input = conn.getInputStream()) {
-                                IOUtils.copy(input, baos);
-                                return new ImageData(pictureType, baos.toByteArray());
-                            }
-                        }
-                    }
-
-                    throw new IllegalArgumentException("Selected image URI uses an unsupported content type: " + imageId);
+                    return fetch(uri);
                 }
             }
             catch(URISyntaxException | IOException e) {
@@ -85,4 +139,202 @@ public class WebAndDataUriImageSource extends DataUriImageSource {
         final String path = uri.getPath().toLowerCase(Locale.US);
         return path.endsWith(".jpg") || path.endsWith(".jpeg") || path.endsWith(".png") || path.endsWith(".gif");
     }
+
+    /**
+     * Downloads an image, holding one of the per-host permits for the duration.
+     * @param uri the image URI.
+     * @return the image data.
+     * @throws IOException if the image can't be downloaded, is too large or has an unsupported content type.
+     */
+    private ImageData fetch(final URI uri) throws IOException {
+        final long deadline = System.nanoTime() + timeout.toNanos();
+
+        final String host = uri.getHost() + ':' + uri.getPort();
+        final HostPermits permits = hostPermits.compute(host, (key, existing) -> (existing != null ? existing : new HostPermits(maxConcurrentPerHost)).addUser());
+
+        try {
+            try {
+                if(!permits.semaphore.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                    throw new IOException("Timed out waiting for a connection to " + uri.getHost());
+                }
+            }
+            catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted waiting for a connection to " + uri.getHost(), e);
+            }
+
+            try {
+                return download(uri, deadline);
+            }
+            finally {
+                permits.semaphore.release();
+            }
+        }
+        finally {
+            // once nothing is using or waiting for the host's permits they're removed, so the map doesn't keep every host
+            hostPermits.computeIfPresent(host, (key, existing) -> existing.removeUser() ? null : existing);
+        }
+    }
+
+    /**
+     * Downloads an image, once a per-host permit is held.
+     * @param uri the image URI.
+     * @param deadline the {@link System#nanoTime()} by which the download must be finished.
+     * @return the image data.
+     * @throws IOException if the image can't be downloaded, is too large or has an unsupported content type.
+     */
+    private ImageData download(final URI uri, final long deadline) throws IOException {
+        final HttpRequest request = HttpRequest.newBuilder(uri).timeout(timeout).GET().build();
+
+        final CompletableFuture<HttpResponse<ImageData>> future = httpClient.sendAsync(request, this::handleResponse);
+
+        try {
+            final HttpResponse<ImageData> response = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+
+            if(response.statusCode() != 200) {
+                throw new IOException("Unexpected HTTP status " + response.statusCode());
+            }
+
+            if(response.body() == null) {
+                throw new IOException("Image is too large or uses an unsupported content type");
+            }
+
+            return response.body();
+        }
+        catch(TimeoutException e) {
+            future.cancel(true);
+            throw new IOException("Timed out downloading image", e);
+        }
+        catch(ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+        catch(InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted downloading image", e);
+        }
+    }
+
+    /**
+     * Decides whether to read the response body, based on the status and headers.
+     * @param responseInfo the response status and headers.
+     * @return a subscriber which reads the image, or discards the body if we don't want it.
+     */
+    private HttpResponse.BodySubscriber<ImageData> handleResponse(final HttpResponse.ResponseInfo responseInfo) {
+        final long contentLength = responseInfo.headers().firstValueAsLong("Content-Length").orElse(-1);
+
+        if(responseInfo.statusCode() == 200 && contentLength <= maxImageBytes) {
+            final String contentType = responseInfo.headers().firstValue("Content-Type").orElse("").split(";", 2)[0].trim();
+
+            final PictureData.PictureType pictureType = getPictureType(contentType);
+
+            if(pictureType != null) {
+                return new ImageSubscriber(pictureType, (int) contentLength, maxImageBytes);
+            }
+        }
+
+        return new ImageSubscriber(null, 0, 0);
+    }
+
+    /**
+     * The permits for one host, with the number of downloads holding or waiting for them.
+     * The count is only changed inside {@link ConcurrentHashMap#compute} calls, which serialize them.
+     */
+    private static class HostPermits {
+        private final Semaphore semaphore;
+        private int users;
+
+        HostPermits(final int permits) {
+            this.semaphore = new Semaphore(permits);
+        }
+
+        HostPermits addUser() {
+            ++users;
+            return this;
+        }
+
+        /**
+         * @return true if nothing is using the permits any more.
+         */
+        boolean removeUser() {
+            return --users == 0;
+        }
+    }
+
+    /**
+     * Reads the response body into a buffer pre-sized from the Content-Length, giving up once it exceeds the
+     *   maximum image size. The body will be null if the image was rejected.
+     */
+    private static class ImageSubscriber implements HttpResponse.BodySubscriber<ImageData> {
+        private final CompletableFuture<ImageData> result = new CompletableFuture<>();
+        private final PictureData.PictureType pictureType;
+        private final int maxBytes;
+        private Flow.Subscription subscription;
+        private byte[] buffer;
+        private int length;
+
+        /**
+         * @param pictureType the image type, or null if the body should be discarded.
+         * @param contentLength the expected body size, or -1 if unknown.
+         * @param maxBytes the maximum body size.
+         */
+        private ImageSubscriber(final PictureData.PictureType pictureType, final int contentLength, final int maxBytes) {
+            this.pictureType = pictureType;
+            this.maxBytes = maxBytes;
+            this.buffer = new byte[contentLength >= 0 ? contentLength : Math.min(maxBytes, 64 * 1024)];
+        }
+
+        @Override
+        public CompletionStage<ImageData> getBody() {
+            return result;
+        }
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            this.subscription = subscription;
+
+            if(pictureType == null) {
+                subscription.cancel();
+                result.complete(null);
+            }
+            else {
+                subscription.request(Long.MAX_VALUE);
+            }
+        }
+
+        @Override
+        public void onNext(final List<ByteBuffer> items) {
+            if(result.isDone()) {
+                return;
+            }
+
+            for(final ByteBuffer item : items) {
+                final int required = length + item.remaining();
+
+                if(required > maxBytes) {
+                    subscription.cancel();
+                    result.complete(null);
+                    return;
+                }
+
+                if(required > buffer.length) {
+                    buffer = Arrays.copyOf(buffer, Math.min(maxBytes, Math.max(required, 2 * buffer.length)));
+                }
+
+                final int remaining = item.remaining();
+                item.get(buffer, length, remaining);
+                length += remaining;
+            }
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            result.complete(new ImageData(pictureType, length == buffer.length ? buffer : Arrays.copyOf(buffer, length)));
+        }
+    }
 }
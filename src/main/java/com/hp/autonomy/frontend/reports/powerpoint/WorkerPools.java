@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Internal implementation class to create the worker pools a service shares between all its renders, and to run a
+ *   single render's tasks on them with a limit on how many of that render's tasks run at once.
+ * The pools' threads exit after a minute without work, so a service which is no longer used doesn't keep any.
+ */
+final class WorkerPools {
+
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private WorkerPools() {}
+
+    /**
+     * Creates a pool with at most a fixed number of threads; tasks beyond that are queued.
+     * @param maxThreads the maximum number of threads.
+     * @param threadFactory the factory for the pool's threads.
+     * @return the pool.
+     */
+    static ExecutorService bounded(final int maxThreads, final ThreadFactory threadFactory) {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Creates a pool which starts a thread whenever there isn't an idle one; for tasks which spend most of their time
+     *   waiting on I/O, whose concurrency is limited by {@link #submitAll(ExecutorService, List, int)} instead.
+     * @param threadFactory the factory for the pool's threads.
+     * @return the pool.
+     */
+    static ExecutorService unbounded(final ThreadFactory threadFactory) {
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new SynchronousQueue<>(), threadFactory);
+    }
+
+    /**
+     * Runs tasks on a pool, at most a given number at once, in the order they're given.
+     * Cancelling a future with mayInterruptIfRunning interrupts its task if it's running, and stops it being run
+     *   otherwise, without affecting the other tasks.
+     * @param executor the pool to run the tasks on.
+     * @param tasks the tasks to run.
+     * @param parallelism the maximum number of the tasks to run at once.
+     * @param <T> the tasks' result type.
+     * @return the futures of the tasks, in the same order as the tasks.
+     */
+    static <T> List<Future<T>> submitAll(final ExecutorService executor, final List<? extends Callable<T>> tasks, final int parallelism) {
+        final List<FutureTask<T>> futures = new ArrayList<>(tasks.size());
+
+        for(final Callable<T> task : tasks) {
+            futures.add(new FutureTask<>(task));
+        }
+
+        // Rather than submitting every task, submit a few runners which each work through the tasks in turn; so one
+        //   render can't fill the shared pool's queue ahead of every other render.
+        final AtomicInteger next = new AtomicInteger();
+
+        for(int ii = 0; ii < Math.min(parallelism, futures.size()); ++ii) {
+            executor.execute(() -> {
+                for(int taskIdx; (taskIdx = next.getAndIncrement()) < futures.size();) {
+                    // a previous task may have been cancelled while it was running; that shouldn't affect this one
+                    Thread.interrupted();
+                    futures.get(taskIdx).run();
+                }
+            });
+        }
+
+        return new ArrayList<>(futures);
+    }
+
+    /**
+     * Cancels any of the futures which haven't finished yet, interrupting their tasks if they're running.
+     * @param futures the futures to cancel.
+     */
+    static void cancelAll(final List<? extends Future<?>> futures) {
+        for(final Future<?> future : futures) {
+            future.cancel(true);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import com.hp.autonomy.frontend.reports.powerpoint.dto.SunburstData;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AsyncPowerPointServiceTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    /** Blocks each rendering until released. */
+    private final PowerPointService blockingDelegate = new PowerPointServiceImpl(TemplateSource.DEFAULT, TemplateSettingsSource.DEFAULT) {
+        @Override
+        public XMLSlideShow sunburst(final SunburstData sunburst) throws TemplateLoadException {
+            try {
+                release.await();
+            }
+            catch(InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+
+            return super.sunburst(sunburst);
+        }
+    };
+
+    @Test
+    public void testRendersAsynchronously() throws Exception {
+        try(AsyncPowerPointService service = AsyncPowerPointService.fixedPool(new PowerPointServiceImpl(), 2, 10, null)) {
+            try(XMLSlideShow ppt = service.sunburst(createSunburstData()).get(30, TimeUnit.SECONDS)) {
+                Assert.assertEquals(1, ppt.getSlides().size());
+            }
+        }
+    }
+
+    @Test
+    public void testFailuresCompleteTheFuture() throws Exception {
+        try(AsyncPowerPointService service = AsyncPowerPointService.fixedPool(new PowerPointServiceImpl(), 1, 1, null)) {
+            service.sunburst(new SunburstData(new String[] { "Red" }, new double[] {}, null, null, null, "Bad")).get(30, TimeUnit.SECONDS);
+            Assert.fail("Invalid data should have been rejected");
+        }
+        catch(ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    @Test
+    public void testFullQueueIsRejected() throws Exception {
+        try(AsyncPowerPointService service = AsyncPowerPointService.fixedPool(blockingDelegate, 1, 1, null)) {
+            final CompletableFuture<XMLSlideShow> running = service.sunburst(createSunburstData());
+            final CompletableFuture<XMLSlideShow> queued = service.sunburst(createSunburstData());
+            final CompletableFuture<XMLSlideShow> rejected = service.sunburst(createSunburstData());
+
+            Assert.assertTrue(rejected.isCompletedExceptionally());
+
+            try {
+                rejected.get();
+                Assert.fail("Request should have been rejected");
+            }
+            catch(ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof RejectedExecutionException);
+            }
+
+            release.countDown();
+            running.get(30, TimeUnit.SECONDS).close();
+            queued.get(30, TimeUnit.SECONDS).close();
+        }
+        finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testSlowRenderTimesOut() throws Exception {
+        try(AsyncPowerPointService service = AsyncPowerPointService.fixedPool(blockingDelegate, 1, 1, Duration.ofMillis(100))) {
+            service.sunburst(createSunburstData()).get(30, TimeUnit.SECONDS);
+            Assert.fail("Rendering should have timed out");
+        }
+        catch(ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        finally {
+            release.countDown();
+        }
+    }
+
+    private static SunburstData createSunburstData() {
+        return new SunburstData(new String[] { "Red", "Green" }, new double[] { 1, 169 }, null, null, null, "Colours");
+    }
+}
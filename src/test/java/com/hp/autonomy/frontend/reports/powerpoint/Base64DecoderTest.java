@@ -0,0 +1,61 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.apache.commons.codec.binary.Base64;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class Base64DecoderTest {
+
+    private static byte[] decode(final String chars) {
+        return Base64Decoder.decode(chars, 0, chars.length());
+    }
+
+    @Test
+    public void testDecodeRange() {
+        final String dataUri = "data:text/plain;base64,SGVsbG8sIHdvcmxkIQ==";
+
+        Assert.assertArrayEquals("Hello, world!".getBytes(StandardCharsets.US_ASCII), Base64Decoder.decode(dataUri, dataUri.indexOf(',') + 1, dataUri.length()));
+    }
+
+    @Test
+    public void testDecodeMatchesCommonsCodec() {
+        final Random random = new Random(42);
+
+        for(int ii = 0; ii < 1000; ++ii) {
+            final byte[] data = new byte[random.nextInt(100)];
+            random.nextBytes(data);
+
+            final String chunked = new String(Base64.encodeBase64Chunked(data), StandardCharsets.US_ASCII);
+            Assert.assertArrayEquals(data, decode(chunked));
+
+            final String urlSafe = Base64.encodeBase64URLSafeString(data);
+            Assert.assertArrayEquals(data, decode(urlSafe));
+
+            // Truncated data has its incomplete trailing bits discarded
+            final String truncated = urlSafe.substring(0, random.nextInt(urlSafe.length() + 1));
+            Assert.assertArrayEquals(Base64.decodeBase64(truncated), decode(truncated));
+        }
+    }
+
+    @Test
+    public void testDecodeIgnoresOtherCharacters() {
+        Assert.assertArrayEquals(Base64.decodeBase64(",SGVs\u00e9bG8=IHdvcmxk"), decode(",SGVs\u00e9bG8=IHdvcmxk"));
+        Assert.assertArrayEquals(new byte[0], decode(""));
+    }
+}
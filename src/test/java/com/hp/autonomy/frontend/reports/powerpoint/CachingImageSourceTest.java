@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.poi.sl.usermodel.PictureData;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CachingImageSourceTest {
+
+    private final AtomicInteger fetches = new AtomicInteger();
+
+    /** Returns images of 100 bytes, with the content depending on the first character of the identifier. */
+    private final ImageSource delegate = imageId -> {
+        fetches.incrementAndGet();
+        final byte[] data = new byte[100];
+        data[0] = (byte) imageId.charAt(0);
+        return new ImageData(PictureData.PictureType.PNG, data);
+    };
+
+    @Test
+    public void testRepeatedFetchIsCached() {
+        final CachingImageSource source = new CachingImageSource(delegate, 1000);
+
+        final ImageData first = source.getImageData("a1");
+        final ImageData second = source.getImageData("a1");
+
+        Assert.assertSame(first, second);
+        Assert.assertEquals(1, fetches.get());
+        Assert.assertEquals(1, source.getHitCount());
+        Assert.assertEquals(1, source.getMissCount());
+    }
+
+    @Test
+    public void testIdenticalContentIsStoredOnce() {
+        final CachingImageSource source = new CachingImageSource(delegate, 1000);
+
+        final ImageData first = source.getImageData("a1");
+        final ImageData second = source.getImageData("a2");
+
+        Assert.assertSame(first, second);
+        Assert.assertEquals(2, source.size());
+        Assert.assertEquals(100, source.getCurrentBytes());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+        final CachingImageSource source = new CachingImageSource(delegate, 250);
+
+        source.getImageData("a");
+        source.getImageData("b");
+        // touch 'a' so 'b' is the least recently used
+        source.getImageData("a");
+        source.getImageData("c");
+
+        Assert.assertEquals(1, source.getEvictionCount());
+        Assert.assertEquals(200, source.getCurrentBytes());
+
+        source.getImageData("a");
+        Assert.assertEquals(3, fetches.get());
+
+        source.getImageData("b");
+        Assert.assertEquals(4, fetches.get());
+    }
+
+    @Test
+    public void testOversizedImageIsNotCached() {
+        final CachingImageSource source = new CachingImageSource(delegate, 50);
+
+        source.getImageData("a");
+        source.getImageData("a");
+
+        Assert.assertEquals(2, fetches.get());
+        Assert.assertEquals(0, source.getCurrentBytes());
+    }
+
+    @Test
+    public void testExpiredEntryIsRefetched() throws InterruptedException {
+        final CachingImageSource source = new CachingImageSource(delegate, 1000, Duration.ofMillis(1));
+
+        source.getImageData("a");
+        Thread.sleep(20);
+        source.getImageData("a");
+
+        Assert.assertEquals(2, fetches.get());
+        Assert.assertEquals(2, source.getMissCount());
+        Assert.assertEquals(100, source.getCurrentBytes());
+    }
+}
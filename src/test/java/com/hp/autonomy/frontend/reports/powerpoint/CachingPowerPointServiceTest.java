@@ -0,0 +1,147 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import com.hp.autonomy.frontend.reports.powerpoint.dto.SunburstData;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CachingPowerPointServiceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final PowerPointService delegate = new PowerPointServiceImpl(TemplateSource.DEFAULT, TemplateSettingsSource.DEFAULT);
+
+    @Test
+    public void testRepeatedRenderIsCached() throws TemplateLoadException, IOException {
+        final CachingPowerPointService service = new CachingPowerPointService(delegate, TemplateSource.DEFAULT, TemplateSettingsSource.DEFAULT, new MemoryRenderCache(16 * 1024 * 1024));
+
+        final byte[] first = render(service, createSunburstData("Red"));
+        final byte[] second = render(service, createSunburstData("Red"));
+
+        Assert.assertArrayEquals(first, second);
+        Assert.assertEquals(1, service.getMissCount());
+        Assert.assertEquals(1, service.getHitCount());
+
+        render(service, createSunburstData("Blue"));
+        Assert.assertEquals(2, service.getMissCount());
+
+        try(XMLSlideShow ppt = service.sunburst(createSunburstData("Red"))) {
+            Assert.assertEquals(1, ppt.getSlides().size());
+        }
+
+        Assert.assertEquals(2, service.getHitCount());
+    }
+
+    @Test
+    public void testSettingsArePartOfTheKey() throws TemplateLoadException, IOException {
+        final TemplateSettings settings = new TemplateSettings();
+        final CachingPowerPointService service = new CachingPowerPointService(delegate, TemplateSource.DEFAULT, () -> settings, new MemoryRenderCache(16 * 1024 * 1024));
+
+        render(service, createSunburstData("Red"));
+        settings.setImageResampleDpi(96);
+        render(service, createSunburstData("Red"));
+
+        Assert.assertEquals(2, service.getMissCount());
+    }
+
+    @Test
+    public void testMemoryCacheEvictsLeastRecentlyUsed() {
+        final MemoryRenderCache cache = new MemoryRenderCache(250);
+
+        cache.put("a", new byte[100]);
+        cache.put("b", new byte[100]);
+        Assert.assertNotNull(cache.get("a"));
+        cache.put("c", new byte[100]);
+
+        Assert.assertNotNull(cache.get("a"));
+        Assert.assertNull(cache.get("b"));
+        Assert.assertEquals(1, cache.getEvictionCount());
+        Assert.assertEquals(200, cache.getCurrentBytes());
+
+        cache.put("d", new byte[300]);
+        Assert.assertNull(cache.get("d"));
+        Assert.assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testDiskCacheSurvivesRestart() throws IOException {
+        final Path directory = folder.getRoot().toPath();
+        final String key = ContentHasher.hash("key");
+
+        new DiskRenderCache(directory, 1000).put(key, new byte[] { 1, 2, 3 });
+
+        final DiskRenderCache reopened = new DiskRenderCache(directory, 1000);
+        Assert.assertArrayEquals(new byte[] { 1, 2, 3 }, reopened.get(key));
+        Assert.assertEquals(3, reopened.getCurrentBytes());
+
+        reopened.invalidate();
+        Assert.assertNull(new DiskRenderCache(directory, 1000).get(key));
+    }
+
+    @Test
+    public void testFailedCacheWriteStillReturnsRendering() throws TemplateLoadException, IOException {
+        final CachingPowerPointService service = new CachingPowerPointService(delegate, TemplateSource.DEFAULT, TemplateSettingsSource.DEFAULT, new MemoryRenderCache(16 * 1024 * 1024) {
+            @Override
+            public void put(final String key, final byte[] data) {
+                throw new IllegalStateException("Disk full");
+            }
+        });
+
+        Assert.assertTrue(render(service, createSunburstData("Red")).length > 0);
+    }
+
+    @Test
+    public void testRenderingIsNotStoredIfInvalidatedMeanwhile() throws TemplateLoadException, IOException {
+        final CachingPowerPointService[] service = new CachingPowerPointService[1];
+        final MemoryRenderCache cache = new MemoryRenderCache(16 * 1024 * 1024) {
+            @Override
+            public byte[] get(final String key) {
+                // the template is invalidated after the render started, i.e. after the cache is checked
+                service[0].invalidate();
+                return super.get(key);
+            }
+        };
+
+        service[0] = new CachingPowerPointService(delegate, TemplateSource.DEFAULT, TemplateSettingsSource.DEFAULT, cache);
+        render(service[0], createSunburstData("Red"));
+
+        Assert.assertEquals(0, cache.size());
+    }
+
+    private static byte[] render(final PowerPointService service, final SunburstData data) throws TemplateLoadException, IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        service.sunburst(data, output);
+        return output.toByteArray();
+    }
+
+    private static SunburstData createSunburstData(final String category) {
+        return new SunburstData(
+                new String[] { category, "Green" },
+                new double[] { 1, 169 },
+                null,
+                null,
+                null,
+                "Colours"
+        );
+    }
+}
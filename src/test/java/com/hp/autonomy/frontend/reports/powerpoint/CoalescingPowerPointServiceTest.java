@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import com.hp.autonomy.frontend.reports.powerpoint.dto.SunburstData;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CoalescingPowerPointServiceTest {
+
+    private final AtomicInteger renders = new AtomicInteger();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    /** Blocks each rendering until released, so we can queue up identical requests behind it. */
+    private final PowerPointService delegate = new PowerPointServiceImpl(TemplateSource.DEFAULT, TemplateSettingsSource.DEFAULT) {
+        @Override
+        public XMLSlideShow sunburst(final SunburstData sunburst) throws TemplateLoadException {
+            renders.incrementAndGet();
+            started.countDown();
+
+            try {
+                release.await();
+            }
+            catch(InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+
+            return super.sunburst(sunburst);
+        }
+    };
+
+    @Test
+    public void testIdenticalConcurrentRequestsRenderOnce() throws Exception {
+        final CoalescingPowerPointService service = new CoalescingPowerPointService(delegate, TemplateSettingsSource.DEFAULT);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            final List<Future<byte[]>> results = new ArrayList<>();
+            results.add(executor.submit(() -> render(service)));
+            Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            for(int ii = 0; ii < 3; ++ii) {
+                results.add(executor.submit(() -> render(service)));
+            }
+
+            final long deadline = System.currentTimeMillis() + 10000;
+            while(service.getCoalescedCount() < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            release.countDown();
+
+            final byte[] first = results.get(0).get(10, TimeUnit.SECONDS);
+            for(final Future<byte[]> result : results) {
+                Assert.assertArrayEquals(first, result.get(10, TimeUnit.SECONDS));
+            }
+
+            Assert.assertEquals(1, renders.get());
+            Assert.assertEquals(1, service.getRenderCount());
+            Assert.assertEquals(3, service.getCoalescedCount());
+            Assert.assertEquals(0, service.getInFlightCount());
+        }
+        finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+
+        // Once complete, identical requests are rendered again
+        render(service);
+        Assert.assertEquals(2, service.getRenderCount());
+    }
+
+    private static byte[] render(final PowerPointService service) throws Exception {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        service.sunburst(new SunburstData(new String[] { "Red", "Green" }, new double[] { 1, 169 }, null, null, null, "Colours"), output);
+        return output.toByteArray();
+    }
+}
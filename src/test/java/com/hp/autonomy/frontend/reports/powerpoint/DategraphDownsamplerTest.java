@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import com.hp.autonomy.frontend.reports.powerpoint.dto.DategraphData;
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DategraphDownsamplerTest {
+
+    private static DategraphData createData(final int length) {
+        final long[] timestamps = new long[length];
+        final double[] primary = new double[length];
+        final double[] secondary = new double[length];
+
+        for(int ii = 0; ii < length; ++ii) {
+            timestamps[ii] = 1480690162L + 60L * ii;
+            primary[ii] = Math.sin(ii / 500.);
+            secondary[ii] = 1000 * Math.cos(ii / 300.);
+        }
+
+        // Single-point spikes which should survive downsampling
+        primary[12345] = 50;
+        secondary[54321] = -5000;
+
+        return new DategraphData(timestamps, Arrays.asList(
+                new DategraphData.Row("#FF0000", "Primary", false, primary),
+                new DategraphData.Row("#00FF00", "Secondary", true, secondary)
+        ));
+    }
+
+    @Test
+    public void testDownsample() {
+        final DategraphData data = createData(100000);
+        final DategraphData downsampled = DategraphDownsampler.downsample(data, 1000);
+
+        final long[] timestamps = downsampled.getTimestamps();
+        Assert.assertTrue(downsampled.validateInput());
+        Assert.assertTrue(timestamps.length <= 1000);
+        Assert.assertTrue(timestamps.length > 500);
+
+        Assert.assertEquals(data.getTimestamps()[0], timestamps[0]);
+        Assert.assertEquals(data.getTimestamps()[99999], timestamps[timestamps.length - 1]);
+
+        for(int ii = 1; ii < timestamps.length; ++ii) {
+            Assert.assertTrue(timestamps[ii] > timestamps[ii - 1]);
+        }
+
+        final DategraphData.Row primary = downsampled.getRows().get(0);
+        final DategraphData.Row secondary = downsampled.getRows().get(1);
+
+        Assert.assertEquals("Primary", primary.getLabel());
+        Assert.assertFalse(primary.isSecondaryAxis());
+        Assert.assertTrue(secondary.isSecondaryAxis());
+
+        Assert.assertEquals(50, Arrays.stream(primary.getValues()).max().getAsDouble(), 0);
+        Assert.assertEquals(-5000, Arrays.stream(secondary.getValues()).min().getAsDouble(), 0);
+
+        // The values still line up with their timestamps
+        for(int ii = 0; ii < timestamps.length; ++ii) {
+            final int original = (int) ((timestamps[ii] - 1480690162L) / 60);
+            Assert.assertEquals(data.getRows().get(0).getValues()[original], primary.getValues()[ii], 0);
+            Assert.assertEquals(data.getRows().get(1).getValues()[original], secondary.getValues()[ii], 0);
+        }
+
+        Assert.assertEquals(100000, data.getTimestamps().length);
+    }
+
+    @Test
+    public void testSmallDataIsUnchanged() {
+        final DategraphData data = createData(100000);
+
+        Assert.assertSame(data, DategraphDownsampler.downsample(data, 100000));
+        Assert.assertSame(data, DategraphDownsampler.downsample(data, 0));
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import javax.imageio.ImageIO;
+import org.apache.poi.sl.usermodel.PictureData;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ImageDataTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static byte[] createPng() throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(20, 10, BufferedImage.TYPE_INT_ARGB), "png", output);
+        return output.toByteArray();
+    }
+
+    private static void assertSameImage(final ImageData expected, final ImageData actual) {
+        Assert.assertTrue(actual.isBuffered());
+        Assert.assertEquals(expected.getSize(), actual.getSize());
+        Assert.assertArrayEquals(expected.getData(), actual.getData());
+        Assert.assertEquals(expected.getBuffer(), actual.getBuffer());
+        Assert.assertEquals(20, actual.getWidth());
+        Assert.assertEquals(10, actual.getHeight());
+        Assert.assertEquals(expected, actual);
+        Assert.assertEquals(expected.hashCode(), actual.hashCode());
+    }
+
+    @Test
+    public void testToDirectBuffer() throws IOException {
+        final ImageData heap = new ImageData(PictureData.PictureType.PNG, createPng());
+        Assert.assertFalse(heap.isBuffered());
+
+        final ImageData direct = heap.toDirectBuffer();
+        Assert.assertTrue(direct.getBuffer().isDirect());
+        assertSameImage(heap, direct);
+        Assert.assertSame(direct, direct.toDirectBuffer());
+    }
+
+    @Test
+    public void testFromBuffer() throws IOException {
+        final byte[] png = createPng();
+        final ByteBuffer buffer = ByteBuffer.allocate(png.length + 10);
+        buffer.position(5);
+        buffer.put(png);
+        buffer.position(5);
+        buffer.limit(5 + png.length);
+
+        assertSameImage(new ImageData(PictureData.PictureType.PNG, png), ImageData.fromBuffer(PictureData.PictureType.PNG, buffer));
+    }
+
+    @Test
+    public void testFromFile() throws IOException {
+        final byte[] png = createPng();
+        final File file = temporaryFolder.newFile("image.png");
+        Files.write(file.toPath(), png);
+
+        assertSameImage(new ImageData(PictureData.PictureType.PNG, png), ImageData.fromFile(PictureData.PictureType.PNG, file.toPath()));
+    }
+
+    @Test
+    public void testNoData() {
+        final ImageData image = new ImageData(PictureData.PictureType.PNG, null);
+        Assert.assertNull(image.getData());
+        Assert.assertNull(image.getBuffer());
+        Assert.assertEquals(0, image.getSize());
+        Assert.assertFalse(image.hasDimensions());
+        Assert.assertSame(image, image.toDirectBuffer());
+    }
+
+    @Test
+    public void testEqualsComparesBufferContent() throws IOException {
+        final byte[] png = createPng();
+        final byte[] otherPng = png.clone();
+        // change the last byte, i.e. the IEND chunk's CRC, so the header and dimensions stay the same
+        otherPng[otherPng.length - 1] ^= 1;
+
+        final ImageData buffered = ImageData.fromBuffer(PictureData.PictureType.PNG, ByteBuffer.wrap(png));
+        final ImageData otherBuffered = ImageData.fromBuffer(PictureData.PictureType.PNG, ByteBuffer.wrap(otherPng));
+        Assert.assertEquals(buffered.getWidth(), otherBuffered.getWidth());
+        Assert.assertEquals(buffered.getHeight(), otherBuffered.getHeight());
+
+        Assert.assertNotEquals(buffered, otherBuffered);
+        Assert.assertNotEquals(buffered, new ImageData(PictureData.PictureType.PNG, otherPng));
+        Assert.assertNotEquals(buffered, ImageData.fromBuffer(PictureData.PictureType.JPEG, ByteBuffer.wrap(png)));
+
+        final ImageData sameBuffered = ImageData.fromBuffer(PictureData.PictureType.PNG, ByteBuffer.wrap(png.clone()));
+        Assert.assertEquals(buffered, sameBuffered);
+        Assert.assertEquals(buffered.hashCode(), sameBuffered.hashCode());
+    }
+}
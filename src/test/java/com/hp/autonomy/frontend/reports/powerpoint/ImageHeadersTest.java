@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import javax.imageio.ImageIO;
+import org.apache.poi.sl.usermodel.PictureData;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ImageHeadersTest {
+
+    private static byte[] createImage(final String format) throws IOException {
+        final BufferedImage image = new BufferedImage(123, 45, BufferedImage.TYPE_INT_RGB);
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, format, output);
+        return output.toByteArray();
+    }
+
+    @Test
+    public void testProbe() throws IOException {
+        for(final String format : new String[]{"png", "jpg", "gif"}) {
+            Assert.assertEquals(format, new Dimension(123, 45), ImageHeaders.probe(ByteBuffer.wrap(createImage(format))));
+        }
+    }
+
+    @Test
+    public void testProbeUnsupported() throws IOException {
+        Assert.assertNull(ImageHeaders.probe(ByteBuffer.wrap(createImage("bmp"))));
+        Assert.assertNull(ImageHeaders.probe(ByteBuffer.wrap(new byte[0])));
+
+        final byte[] jpeg = createImage("jpg");
+        Assert.assertNull(ImageHeaders.probe(ByteBuffer.wrap(Arrays.copyOf(jpeg, 20))));
+    }
+
+    @Test
+    public void testImageDataDimensions() throws IOException {
+        final ImageData png = new ImageData(PictureData.PictureType.PNG, createImage("png"));
+        Assert.assertTrue(png.hasDimensions());
+        Assert.assertEquals(123, png.getWidth());
+        Assert.assertEquals(45, png.getHeight());
+
+        Assert.assertFalse(new ImageData(PictureData.PictureType.BMP, createImage("bmp")).hasDimensions());
+    }
+}
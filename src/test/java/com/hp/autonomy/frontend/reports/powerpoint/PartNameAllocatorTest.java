@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import java.io.ByteArrayOutputStream;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagingURIHelper;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PartNameAllocatorTest {
+
+    private static final String XML = "application/xml";
+
+    @Test
+    public void testAllocateSkipsExistingParts() throws InvalidFormatException {
+        final OPCPackage opcPackage = OPCPackage.create(new ByteArrayOutputStream());
+        opcPackage.createPart(PackagingURIHelper.createPartName("/ppt/charts/chart2.xml"), XML);
+
+        final PartNameAllocator allocator = new PartNameAllocator(opcPackage);
+
+        Assert.assertEquals("/ppt/charts/chart3.xml", allocator.allocate("/ppt/charts/chart1.xml").getName());
+        Assert.assertEquals("/ppt/charts/chart4.xml", allocator.allocate("/ppt/charts/chart1.xml").getName());
+
+        // Names taken by someone else since are still skipped
+        opcPackage.createPart(PackagingURIHelper.createPartName("/ppt/charts/chart5.xml"), XML);
+        Assert.assertEquals("/ppt/charts/chart6.xml", allocator.allocate("/ppt/charts/chart1.xml").getName());
+
+        // Each name is numbered separately, and never below its own number
+        Assert.assertEquals("/ppt/charts/colors2.xml", allocator.allocate("/ppt/charts/colors1.xml").getName());
+        Assert.assertEquals("/ppt/charts/chart10.xml", allocator.allocate("/ppt/charts/chart9.xml").getName());
+        Assert.assertEquals("/ppt/charts/chart11.xml", allocator.allocate("/ppt/charts/chart1.xml").getName());
+    }
+
+    @Test
+    public void testAllocateUnnumberedName() throws InvalidFormatException {
+        final PartNameAllocator allocator = new PartNameAllocator(OPCPackage.create(new ByteArrayOutputStream()));
+
+        Assert.assertEquals("/ppt/charts/chart.xml", allocator.allocate("/ppt/charts/chart.xml").getName());
+    }
+}
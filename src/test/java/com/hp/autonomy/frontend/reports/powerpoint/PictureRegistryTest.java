@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+import org.apache.poi.sl.usermodel.PictureData;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFPictureData;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PictureRegistryTest {
+
+    private static ImageData createPng(final int width, final int height) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB), "png", output);
+        return new ImageData(PictureData.PictureType.PNG, output.toByteArray());
+    }
+
+    @Test
+    public void testAddReusesPictures() throws IOException {
+        try(XMLSlideShow ppt = new XMLSlideShow()) {
+            final PictureRegistry registry = new PictureRegistry(ppt);
+            final ImageData image = createPng(20, 10);
+
+            final XSLFPictureData picture = registry.add("image", image);
+            Assert.assertSame(picture, registry.add("image", image));
+            Assert.assertSame(picture, registry.add(new String("image"), image));
+
+            // The same data from a different identifier or a buffer is found by its content
+            Assert.assertSame(picture, registry.add("copy", new ImageData(PictureData.PictureType.PNG, image.getData())));
+            Assert.assertSame(picture, registry.add(null, image.toDirectBuffer()));
+            Assert.assertEquals(1, ppt.getPictureData().size());
+
+            // A resampled copy of the same image is a different picture
+            final XSLFPictureData resampled = registry.add("image", createPng(10, 5));
+            Assert.assertNotSame(picture, resampled);
+            Assert.assertSame(resampled, registry.add("image", createPng(10, 5)));
+            Assert.assertEquals(2, ppt.getPictureData().size());
+        }
+    }
+}
@@ -24,18 +24,54 @@ import com.hp.autonomy.frontend.reports.powerpoint.dto.SunburstData;
 import com.hp.autonomy.frontend.reports.powerpoint.dto.TableData;
 import com.hp.autonomy.frontend.reports.powerpoint.dto.TextData;
 import com.hp.autonomy.frontend.reports.powerpoint.dto.TopicMapData;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import javax.imageio.ImageIO;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.openxml4j.opc.PackageRelationship;
+import org.apache.poi.openxml4j.opc.TargetMode;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.util.IOUtils;
 import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFGraphicFrame;
+import org.apache.poi.xslf.usermodel.XSLFShape;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xslf.usermodel.XSLFTable;
+import org.apache.poi.xslf.usermodel.XSLFTextBox;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.openxmlformats.schemas.drawingml.x2006.chart.CTNumData;
+import org.openxmlformats.schemas.drawingml.x2006.chart.CTPieSer;
+import org.openxmlformats.schemas.drawingml.x2006.chart.CTPlotArea;
+import org.openxmlformats.schemas.drawingml.x2006.chart.CTScatterSer;
 
 import static java.io.File.createTempFile;
 
@@ -130,6 +166,36 @@ public class PowerPointServiceImplTest {
         testResourceAsTemplate("templateMissingComponents.pptx");
     }
 
+    @Test
+    public void testCachingTemplateSource() throws TemplateLoadException, IOException {
+        final AtomicInteger loads = new AtomicInteger();
+        final CachingTemplateSource templateSource = new CachingTemplateSource(() -> {
+            loads.incrementAndGet();
+            return TemplateSource.DEFAULT.getInputStream();
+        });
+
+        final PowerPointService service = new PowerPointServiceImpl(templateSource, TemplateSettingsSource.DEFAULT, ImageSource.DEFAULT);
+        service.validateTemplate();
+
+        final XMLSlideShow graph = service.graph(createTwoAxisDategraphData());
+        testWrite(graph);
+        Assert.assertEquals(1, graph.getSlides().size());
+
+        final XMLSlideShow sunburst = service.sunburst(createSunburstData());
+        testWrite(sunburst);
+        Assert.assertEquals(1, sunburst.getSlides().size());
+
+        // The template should only have been read once, despite multiple presentations being generated.
+        Assert.assertEquals(1, loads.get());
+
+        templateSource.invalidate();
+
+        final XMLSlideShow report = service.report(createComplicatedReport(3), false);
+        testWrite(report);
+        Assert.assertEquals(1, report.getSlides().size());
+        Assert.assertEquals(2, loads.get());
+    }
+
     private static void testResourceAsTemplate(final String resource) throws TemplateLoadException {
         new PowerPointServiceImpl(
                 () -> PowerPointServiceImplTest.class.getResourceAsStream(resource),
@@ -168,6 +234,83 @@ public class PowerPointServiceImplTest {
         Assert.assertEquals(pptx.getSlides().size(), 1);
     }
 
+    @Test
+    public void testDateGraphSeriesCaches() throws TemplateLoadException, IOException {
+        final DategraphData data = createTwoAxisDategraphData();
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        pptxService.graph(data).write(output);
+
+        try(XMLSlideShow pptx = new XMLSlideShow(new ByteArrayInputStream(output.toByteArray()))) {
+            final CTPlotArea plotArea = pptx.getCharts().get(0).getCTChart().getPlotArea();
+
+            for(int ii = 0; ii < 2; ++ii) {
+                final CTScatterSer series = plotArea.getScatterChartArray(ii).getSerArray(0);
+                final CTNumData xCache = series.getXVal().getNumRef().getNumCache();
+                final CTNumData yCache = series.getYVal().getNumRef().getNumCache();
+                final double[] values = data.getRows().get(ii).getValues();
+
+                Assert.assertEquals(values.length, yCache.getPtCount().getVal());
+                Assert.assertEquals(values.length, yCache.sizeOfPtArray());
+                Assert.assertEquals(values.length, xCache.sizeOfPtArray());
+
+                for(int pt = 0; pt < values.length; ++pt) {
+                    Assert.assertEquals(pt, yCache.getPtArray(pt).getIdx());
+                    Assert.assertEquals(values[pt], Double.parseDouble(yCache.getPtArray(pt).getV()), 0);
+                    Assert.assertEquals(DateUtil.getExcelDate(new Date(data.getTimestamps()[pt] * 1000)), Double.parseDouble(xCache.getPtArray(pt).getV()), 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLargeDateGraphEmbeddedWorkbook() throws TemplateLoadException, IOException, InvalidFormatException {
+        final int length = 20000;
+        final long[] timestamps = new long[length];
+        final double[] red = new double[length], green = new double[length];
+
+        for(int ii = 0; ii < length; ++ii) {
+            timestamps[ii] = 1480690162L + 60L * ii;
+            red[ii] = ii;
+            green[ii] = -ii;
+        }
+
+        final DategraphData data = new DategraphData(timestamps, Arrays.asList(
+                new DategraphData.Row("#FF0000", "Red Line", false, red),
+                new DategraphData.Row("#00FF00", "Green Line", true, green)
+        ));
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        pptxService.graph(data).write(output);
+
+        try(XMLSlideShow pptx = new XMLSlideShow(new ByteArrayInputStream(output.toByteArray()))) {
+            final Sheet sheet = pptx.getCharts().get(0).getWorkbook().getSheetAt(0);
+
+            Assert.assertEquals(length, sheet.getLastRowNum());
+            Assert.assertEquals("Green Line", sheet.getRow(0).getCell(2).getStringCellValue());
+            Assert.assertEquals(new Date(timestamps[length - 1] * 1000), sheet.getRow(length).getCell(0).getDateCellValue());
+            Assert.assertEquals(length - 1, sheet.getRow(length).getCell(1).getNumericCellValue(), 0);
+            Assert.assertEquals(1 - length, sheet.getRow(length).getCell(2).getNumericCellValue(), 0);
+        }
+    }
+
+    @Test
+    public void testSunburstCategoriesAreEscaped() throws TemplateLoadException, IOException {
+        final SunburstData sunburst = createSunburstData();
+        sunburst.setCategories(new String[]{ "R&D", "<Green>", "Blue" });
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        pptxService.sunburst(sunburst).write(output);
+
+        try(XMLSlideShow pptx = new XMLSlideShow(new ByteArrayInputStream(output.toByteArray()))) {
+            final CTPieSer series = pptx.getCharts().get(0).getCTChart().getPlotArea().getDoughnutChartArray(0).getSerArray(0);
+
+            Assert.assertEquals("R&D", series.getCat().getStrRef().getStrCache().getPtArray(0).getV());
+            Assert.assertEquals("<Green>", series.getCat().getStrRef().getStrCache().getPtArray(1).getV());
+            Assert.assertEquals(169, Double.parseDouble(series.getVal().getNumRef().getNumCache().getPtArray(1).getV()), 0);
+        }
+    }
+
     @Test
     public void testSunburst() throws TemplateLoadException, IOException {
         final SunburstData sunburst = createSunburstData();
@@ -247,6 +390,46 @@ public class PowerPointServiceImplTest {
         Assert.assertTrue(pptx.getSlides().size() > 1);
     }
 
+    @Test
+    public void testListPaginationDrawsEachDocumentOnce() throws TemplateLoadException, IOException {
+        final ListData.Document[] docs = new ListData.Document[40];
+        for(int ii = 0; ii < docs.length; ++ii) {
+            docs[ii] = new ListData.Document("title" + ii, "5 months ago", "reference", "summary " + ii, ii % 2 == 0 ? sampleJPEGImage : null);
+        }
+
+        final XMLSlideShow pptx = pptxService.list(new ListData(docs), "Showing 1 to 40 of 40 results", "Sort by Relevance");
+        testWrite(pptx);
+
+        Assert.assertTrue(pptx.getSlides().size() > 1);
+
+        final List<String> titles = new ArrayList<>();
+        for(final XSLFSlide slide : pptx.getSlides()) {
+            int headers = 0;
+
+            for(final XSLFShape shape : slide.getShapes()) {
+                if (shape instanceof XSLFTextBox) {
+                    final String text = ((XSLFTextBox) shape).getText();
+
+                    if (text.startsWith("title")) {
+                        titles.add(text.substring(0, text.indexOf('\n')));
+                    }
+                    else {
+                        headers++;
+                    }
+                }
+            }
+
+            Assert.assertEquals(2, headers);
+        }
+
+        final List<String> expected = new ArrayList<>();
+        for(final ListData.Document doc : docs) {
+            expected.add(doc.getTitle());
+        }
+
+        Assert.assertEquals(expected, titles);
+    }
+
     @Test
     public void testListPaginationNoIcons() throws TemplateLoadException, IOException {
         final ListData listData = createListData();
@@ -282,6 +465,72 @@ public class PowerPointServiceImplTest {
         Assert.assertTrue(pptx.getSlides().size() > 1);
     }
 
+    @Test
+    public void testListPrefetchesThumbnailsConcurrently() throws TemplateLoadException, IOException {
+        // Each image fetch waits until both fetches have started, so this only works if they're fetched concurrently.
+        final CountDownLatch latch = new CountDownLatch(2);
+
+        final TemplateSettings settings = new TemplateSettings();
+        settings.setImagePrefetchThreads(8);
+
+        final PowerPointService service = new PowerPointServiceImpl(TemplateSource.DEFAULT, () -> settings, imageId -> {
+            latch.countDown();
+
+            try {
+                if (!latch.await(10, TimeUnit.SECONDS)) {
+                    throw new IllegalArgumentException("Images were fetched one at a time");
+                }
+            }
+            catch(InterruptedException e) {
+                throw new IllegalArgumentException(e);
+            }
+
+            return ImageSource.DEFAULT.getImageData(imageId);
+        });
+
+        final ListData listData = new ListData(new ListData.Document[]{
+                new ListData.Document("title1", "5 months ago", "reference", "summary", sampleJPEGImage),
+                new ListData.Document("title2", "5 months ago", "reference", "summary", samplePNGImage),
+                new ListData.Document("title3", "5 months ago", "reference", "summary", sampleJPEGImage)
+        });
+
+        final XMLSlideShow pptx = service.list(listData, null, null);
+        testWrite(pptx);
+
+        Assert.assertEquals(2, pptx.getPictureData().size());
+    }
+
+    @Test
+    public void testListResamplesLargeThumbnails() throws TemplateLoadException, IOException {
+        final BufferedImage image = new BufferedImage(1600, 900, BufferedImage.TYPE_INT_RGB);
+        final Random random = new Random(1);
+        for(int y = 0; y < image.getHeight(); ++y) {
+            for(int x = 0; x < image.getWidth(); ++x) {
+                image.setRGB(x, y, random.nextInt(0xffffff));
+            }
+        }
+
+        final ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", jpeg);
+        final String thumbnail = "data:image/jpeg;base64," + Base64.getEncoder().encodeToString(jpeg.toByteArray());
+
+        final TemplateSettings settings = new TemplateSettings();
+        settings.setImageResampleDpi(144);
+
+        final PowerPointService service = new PowerPointServiceImpl(TemplateSource.DEFAULT, () -> settings);
+
+        final ListData listData = new ListData(new ListData.Document[]{
+                new ListData.Document("title1", "5 months ago", "reference", "summary", thumbnail),
+                new ListData.Document("title2", "5 months ago", "reference", "summary", thumbnail)
+        });
+
+        final XMLSlideShow pptx = service.list(listData, null, null);
+        testWrite(pptx);
+
+        Assert.assertEquals(1, pptx.getPictureData().size());
+        Assert.assertTrue(pptx.getPictureData().get(0).getData().length < jpeg.size() / 10);
+    }
+
     private static ListData createListData() {
         return new ListData(new ListData.Document[]{
                 new ListData.Document("title1", "5 months ago", "reference", "summary", null),
@@ -413,6 +662,307 @@ public class PowerPointServiceImplTest {
         Assert.assertEquals(pptx.getSlides().size(), 3);
     }
 
+    @Test
+    public void testLinearReportToOutputStream() throws TemplateLoadException, IOException {
+        final String titleFont = "Times New Roman";
+        final ReportData report = new ReportData(new ReportData.Child[] {
+                new ReportData.Child(0, 0, 1, 1, "Slide#1 Dategraph", 3, 5, 12, titleFont, createTwoAxisDategraphData()),
+                new ReportData.Child(0, 0, 1, 1, "Slide#2 List", 3, 5, 12, titleFont, createListData()),
+        });
+
+        final File temp = createTempFile("temp", ".pptx");
+        temp.deleteOnExit();
+
+        try(FileOutputStream output = new FileOutputStream(temp)) {
+            pptxService.report(report, true, output);
+        }
+
+        try(XMLSlideShow pptx = new XMLSlideShow(new FileInputStream(temp))) {
+            Assert.assertEquals(2, pptx.getSlides().size());
+        }
+    }
+
+    @Test
+    public void testConcurrentReportMatchesSequential() throws TemplateLoadException, IOException, InvalidFormatException {
+        for(final boolean slidePerVisualizer : new boolean[]{ true, false }) {
+            final Map<String, byte[]> sequential = renderReportParts(1, slidePerVisualizer);
+            final Map<String, byte[]> concurrent = renderReportParts(4, slidePerVisualizer);
+
+            Assert.assertEquals(sequential.keySet(), concurrent.keySet());
+            Assert.assertTrue(sequential.keySet().stream().filter(name -> name.matches("/ppt/charts/chart\\d+\\.xml")).count() >= 4);
+
+            for(final Map.Entry<String, byte[]> entry : sequential.entrySet()) {
+                // The embedded workbooks are timestamped, so only compare the presentation itself
+                if (!entry.getKey().startsWith("/ppt/embeddings/")) {
+                    Assert.assertArrayEquals(entry.getKey(), entry.getValue(), concurrent.get(entry.getKey()));
+                }
+            }
+        }
+    }
+
+    private static Map<String, byte[]> renderReportParts(final int reportThreads, final boolean slidePerVisualizer) throws TemplateLoadException, IOException, InvalidFormatException {
+        final TemplateSettings settings = new TemplateSettings();
+        settings.setReportThreads(reportThreads);
+
+        final String titleFont = "Times New Roman";
+        final TextData textData = new TextData(new TextData.Paragraph[]{
+                new TextData.Paragraph(false, false, StringUtils.repeat("Plain text which won't all fit. ", 200), "#FF0000", 12),
+        });
+
+        final ReportData report = new ReportData(new ReportData.Child[] {
+                new ReportData.Child(0, 0, 1, 1, "Slide#1 Dategraph", 3, 5, 12, titleFont, createTwoAxisDategraphData()),
+                new ReportData.Child(0, 0, 1, 1, "Slide#2 Sunburst", 3, 5, 12, titleFont, createSunburstData()),
+                new ReportData.Child(0, 0, 1, 1, "Slide#3 Table", 3, 5, 12, titleFont, createTableData()),
+                new ReportData.Child(0, 0, 1, 1, "Slide#4 Dategraph", 3, 5, 12, titleFont, createSingleAxisDategraphData()),
+                new ReportData.Child(0, 0, 1, 1, "Slide#5 Sunburst", 3, 5, 12, titleFont, createAlternativeSunburstData()),
+                new ReportData.Child(0, 0, 1, 1, "Slide#6 List", 3, 5, 12, titleFont, createListData()),
+                new ReportData.Child(0, 0, 1, 1, "Slide#7 Map", 3, 5, 12, titleFont, createMapData()),
+                new ReportData.Child(0, 0, 1, 1, "Slide#8 Topic Map", 3, 5, 12, titleFont, createTopicMapData()),
+                new ReportData.Child(0, 0, 1, 1, "Slide#9 Text", 3, 5, 12, titleFont, textData),
+        });
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new PowerPointServiceImpl(TemplateSource.DEFAULT, () -> settings).report(report, slidePerVisualizer, output);
+
+        final Map<String, byte[]> parts = new TreeMap<>();
+
+        try(OPCPackage opcPackage = OPCPackage.open(new ByteArrayInputStream(output.toByteArray()))) {
+            for(final PackagePart part : opcPackage.getParts()) {
+                // The document properties are timestamped, and POI won't let us read them as a stream anyway
+                if (!part.getPartName().getName().startsWith("/docProps/")) {
+                    try(InputStream input = part.getInputStream()) {
+                        parts.put(part.getPartName().getName(), IOUtils.toByteArray(input));
+                    }
+                }
+            }
+        }
+
+        return parts;
+    }
+
+    @Test
+    public void testStreamedReportMatchesPresentation() throws TemplateLoadException, IOException {
+        for(final boolean slidePerVisualizer : new boolean[]{ true, false }) {
+            final ReportData report = createComplicatedReport(3);
+
+            final ByteArrayOutputStream written = new ByteArrayOutputStream();
+            try(XMLSlideShow pptx = pptxService.report(report, slidePerVisualizer)) {
+                pptx.write(written);
+            }
+
+            final ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+            pptxService.report(report, slidePerVisualizer, streamed);
+
+            assertSameSlides(written, streamed);
+        }
+    }
+
+    @Test
+    public void testStreamedListMatchesPresentation() throws TemplateLoadException, IOException {
+        final ListData.Document[] docs = new ListData.Document[40];
+        for(int ii = 0; ii < docs.length; ++ii) {
+            docs[ii] = new ListData.Document("title" + ii, "5 months ago", "reference", "summary " + ii, ii % 2 == 0 ? sampleJPEGImage : null);
+        }
+
+        final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        try(XMLSlideShow pptx = pptxService.list(new ListData(docs), "Showing 1 to 40 of 40 results", "Sort by Relevance")) {
+            pptx.write(written);
+        }
+
+        final ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        pptxService.list(new ListData(docs), "Showing 1 to 40 of 40 results", "Sort by Relevance", streamed);
+
+        assertSameSlides(written, streamed);
+    }
+
+    private static void assertSameSlides(final ByteArrayOutputStream expected, final ByteArrayOutputStream actual) throws IOException {
+        try(XMLSlideShow expectedPptx = new XMLSlideShow(new ByteArrayInputStream(expected.toByteArray()));
+            XMLSlideShow actualPptx = new XMLSlideShow(new ByteArrayInputStream(actual.toByteArray()))) {
+            final List<XSLFSlide> expectedSlides = expectedPptx.getSlides();
+            final List<XSLFSlide> actualSlides = actualPptx.getSlides();
+
+            Assert.assertFalse(expectedSlides.isEmpty());
+            Assert.assertEquals(expectedSlides.size(), actualSlides.size());
+
+            for(int ii = 0; ii < expectedSlides.size(); ++ii) {
+                Assert.assertEquals(expectedSlides.get(ii).getXmlObject().xmlText(), actualSlides.get(ii).getXmlObject().xmlText());
+                Assert.assertEquals(expectedSlides.get(ii).getRelations().size(), actualSlides.get(ii).getRelations().size());
+            }
+        }
+    }
+
+    @Test
+    public void testReportSharesChartParts() throws TemplateLoadException, IOException, InvalidFormatException {
+        final TemplateSettings settings = new TemplateSettings();
+        settings.setShareChartParts(true);
+
+        final ReportData report = new ReportData(new ReportData.Child[] {
+                new ReportData.Child(0, 0, 0.5, 0.5, "", 3, 5, 12, null, createSunburstData()),
+                new ReportData.Child(0.5, 0, 0.5, 0.5, "", 3, 5, 12, null, createAlternativeSunburstData()),
+                new ReportData.Child(0, 0.5, 0.5, 0.5, "", 3, 5, 12, null, createSunburstData()),
+        });
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new PowerPointServiceImpl(TemplateSource.DEFAULT, () -> settings).report(report, false, output);
+
+        try(OPCPackage opcPackage = OPCPackage.open(new ByteArrayInputStream(output.toByteArray()))) {
+            final List<PackagePart> charts = opcPackage.getPartsByName(Pattern.compile("/ppt/charts/chart\\d+\\.xml"));
+            Assert.assertEquals(3, charts.size());
+
+            final Set<String> workbooks = new HashSet<>();
+            final Set<Set<String>> sharedParts = new HashSet<>();
+
+            for(final PackagePart chart : charts) {
+                final Set<String> chartShared = new HashSet<>();
+
+                for(final PackageRelationship relationship : chart.getRelationships()) {
+                    final String name = chart.getRelatedPart(relationship).getPartName().getName();
+
+                    if (name.startsWith("/ppt/embeddings/")) {
+                        Assert.assertTrue(workbooks.add(name));
+                    }
+                    else {
+                        chartShared.add(name);
+                    }
+                }
+
+                Assert.assertFalse(chartShared.isEmpty());
+                sharedParts.add(chartShared);
+            }
+
+            // Each chart has its own workbook, but they all refer to the same colors and style parts
+            Assert.assertEquals(3, workbooks.size());
+            Assert.assertEquals(1, sharedParts.size());
+        }
+    }
+
+    @Test
+    public void testReportHasNoOrphanParts() throws TemplateLoadException, IOException, InvalidFormatException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        pptxService.report(createComplicatedReport(3), false, output);
+
+        try(OPCPackage opcPackage = OPCPackage.open(new ByteArrayInputStream(output.toByteArray()))) {
+            final Set<String> referenced = new HashSet<>();
+
+            for(final PackagePart part : opcPackage.getParts()) {
+                if (!part.isRelationshipPart()) {
+                    for(final PackageRelationship relationship : part.getRelationships()) {
+                        if (relationship.getTargetMode() == TargetMode.INTERNAL) {
+                            referenced.add(part.getRelatedPart(relationship).getPartName().getName());
+                        }
+                    }
+                }
+            }
+
+            final List<PackagePart> parts = opcPackage.getPartsByName(Pattern.compile("/ppt/(media|charts|embeddings)/.*"));
+            Assert.assertFalse(parts.isEmpty());
+
+            for(final PackagePart part : parts) {
+                if (!part.isRelationshipPart()) {
+                    Assert.assertTrue(part.getPartName().getName(), referenced.contains(part.getPartName().getName()));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testListToOutputStream() throws TemplateLoadException, IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        pptxService.list(createListData(), "Showing 1 to 10 of 10 results", "Sort by Relevance", output);
+
+        try(XMLSlideShow pptx = new XMLSlideShow(new ByteArrayInputStream(output.toByteArray()))) {
+            Assert.assertTrue(pptx.getSlides().size() > 1);
+        }
+    }
+
+    @Test
+    public void testReportTitlesAreDrawnAfterVisualizers() throws TemplateLoadException, IOException {
+        final String titleFont = "Times New Roman";
+        final ReportData report = new ReportData(new ReportData.Child[] {
+                new ReportData.Child(0, 0, 0.5, 1, "Table", 3, 5, 12, titleFont, createTableData()),
+                new ReportData.Child(0.5, 0, 0.5, 1, "Sunburst", 3, 5, 12, titleFont, createSunburstData()),
+        });
+
+        try(XMLSlideShow pptx = pptxService.report(report, false)) {
+            Assert.assertEquals(1, pptx.getSlides().size());
+            Assert.assertEquals(1, pptx.getPackage().getPartsByName(Pattern.compile("/ppt/slides/slide\\d+\\.xml")).size());
+
+            final List<XSLFShape> shapes = pptx.getSlides().get(0).getShapes();
+            Assert.assertEquals(4, shapes.size());
+
+            // The titles are drawn on top of the visualizers
+            final List<String> titles = new ArrayList<>();
+            for(final XSLFShape shape : shapes.subList(2, 4)) {
+                Assert.assertTrue(shape instanceof XSLFTextBox);
+                Assert.assertEquals(titleFont, ((XSLFTextBox) shape).getTextParagraphs().get(0).getTextRuns().get(0).getFontFamily());
+                titles.add(((XSLFTextBox) shape).getText());
+            }
+
+            Assert.assertTrue(titles.containsAll(Arrays.asList("Table", "Sunburst")));
+        }
+    }
+
+    @Test
+    public void testReportChartsKeepTheirOrderAmongOtherShapes() throws TemplateLoadException, IOException {
+        final ReportData report = new ReportData(new ReportData.Child[] {
+                new ReportData.Child(0, 0, 0.5, 0.5, "", 3, 5, 12, null, createTableData()),
+                new ReportData.Child(0.5, 0, 0.5, 0.5, "", 3, 5, 12, null, createSunburstData()),
+                new ReportData.Child(0, 0.5, 0.5, 0.5, "", 3, 5, 12, null, createTableData()),
+                new ReportData.Child(0.5, 0.5, 0.5, 0.5, "", 3, 5, 12, null, createSingleAxisDategraphData()),
+        });
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        pptxService.report(report, false).write(output);
+
+        try(XMLSlideShow pptx = new XMLSlideShow(new ByteArrayInputStream(output.toByteArray()))) {
+            final List<XSLFShape> shapes = pptx.getSlides().get(0).getShapes();
+            Assert.assertEquals(4, shapes.size());
+
+            Assert.assertTrue(shapes.get(0) instanceof XSLFTable);
+            Assert.assertTrue(shapes.get(1) instanceof XSLFGraphicFrame && !(shapes.get(1) instanceof XSLFTable));
+            Assert.assertTrue(shapes.get(2) instanceof XSLFTable);
+            Assert.assertTrue(shapes.get(3) instanceof XSLFGraphicFrame && !(shapes.get(3) instanceof XSLFTable));
+
+            final Set<Integer> shapeIds = new HashSet<>();
+            for(final XSLFShape shape : shapes) {
+                Assert.assertTrue(shapeIds.add(shape.getShapeId()));
+            }
+        }
+    }
+
+    @Test
+    public void testLiveReportListsChartsAsGraphicFrames() throws TemplateLoadException, IOException {
+        final ReportData report = new ReportData(new ReportData.Child[] {
+                new ReportData.Child(0, 0, 0.5, 0.5, "", 3, 5, 12, null, createTableData()),
+                new ReportData.Child(0.5, 0, 0.5, 0.5, "", 3, 5, 12, null, createSunburstData()),
+                new ReportData.Child(0, 0.5, 0.5, 0.5, "", 3, 5, 12, null, createTableData()),
+                new ReportData.Child(0.5, 0.5, 0.5, 0.5, "", 3, 5, 12, null, createSingleAxisDategraphData()),
+        });
+
+        // Inspect the presentation we were given rather than a reloaded copy, so we see POI's view of the shapes
+        try(XMLSlideShow pptx = pptxService.report(report, false)) {
+            final List<XSLFShape> shapes = pptx.getSlides().get(0).getShapes();
+            Assert.assertEquals(4, shapes.size());
+
+            Assert.assertTrue(shapes.get(0) instanceof XSLFTable);
+            Assert.assertTrue(shapes.get(1) instanceof XSLFGraphicFrame && !(shapes.get(1) instanceof XSLFTable));
+            Assert.assertTrue(shapes.get(2) instanceof XSLFTable);
+            Assert.assertTrue(shapes.get(3) instanceof XSLFGraphicFrame && !(shapes.get(3) instanceof XSLFTable));
+        }
+
+        try(XMLSlideShow pptx = pptxService.graph(createSingleAxisDategraphData())) {
+            for(final XSLFShape shape : pptx.getSlides().get(0).getShapes()) {
+                Assert.assertFalse(shape instanceof XSLFTable);
+            }
+        }
+
+        try(XMLSlideShow pptx = pptxService.sunburst(createSunburstData())) {
+            for(final XSLFShape shape : pptx.getSlides().get(0).getShapes()) {
+                Assert.assertFalse(shape instanceof XSLFTable);
+            }
+        }
+    }
+
     @Test
     public void testComplicatedReport() throws TemplateLoadException, IOException {
         final ReportData report = createComplicatedReport(3);
@@ -503,6 +1053,51 @@ public class PowerPointServiceImplTest {
         Assert.assertEquals(pptx.getSlides().size(), 1);
     }
 
+    @Test
+    public void testTruncateToFitMatchesWordByWordTruncation() {
+        final Random random = new Random(42);
+        final StringBuilder text = new StringBuilder();
+
+        for(int ii = 0; ii < 2000; ++ii) {
+            text.append(ii % 97 == 0 ? "\n" : " ").append(ii % 13 == 0 ? "etc..." : "word").append(random.nextInt(1000));
+        }
+
+        final String words = text.toString().trim();
+
+        for(final int limit : new int[]{ 0, 5, 20, 500, 5000, 20000 }) {
+            final AtomicInteger measurements = new AtomicInteger();
+
+            final String truncated = PowerPointServiceImpl.truncateToFit(words, candidate -> {
+                measurements.incrementAndGet();
+                return candidate.length() <= limit;
+            });
+
+            Assert.assertEquals(truncateWordByWord(words, limit), truncated);
+            Assert.assertTrue("Too many measurements: " + measurements.get(), measurements.get() <= 14);
+        }
+
+        Assert.assertEquals("Short", PowerPointServiceImpl.truncateToFit("Short", candidate -> true));
+        Assert.assertEquals("Some words\u2026", PowerPointServiceImpl.truncateToFit("Some words...  and more", candidate -> candidate.length() <= 12));
+        Assert.assertEquals("Some words\u2026", PowerPointServiceImpl.truncateToFit("Some words\u2026  and more", candidate -> candidate.length() <= 12));
+    }
+
+    /** The original truncation, which dropped one word per layout until the text fit. */
+    private static String truncateWordByWord(final String text, final int limit) {
+        String truncated = text;
+
+        while(truncated.length() > limit) {
+            final int idx = Math.max(truncated.lastIndexOf(' '), truncated.lastIndexOf('\n'));
+
+            if(idx <= 0) {
+                break;
+            }
+
+            truncated = truncated.substring(0, idx).replaceFirst("(\\s*(\\.{3}|\u2026))?$", "\u2026");
+        }
+
+        return truncated;
+    }
+
     private static ReportData createComplicatedReport(final double widgetMargins) throws IOException {
         final String titleFont = "Times New Roman";
         final double titleFontSize = 12;
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xslf.usermodel.XSLFTextBox;
+import org.apache.poi.xslf.usermodel.XSLFTextParagraph;
+import org.apache.poi.xslf.usermodel.XSLFTextRun;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that TextMeasurer agrees with POI's own text layout.
+ */
+public class TextMeasurerTest {
+
+    private static final String LOREM = "Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor incididunt ut labore et dolore magna aliqua.";
+
+    private static final double TOLERANCE = 0.5;
+
+    private XMLSlideShow ppt;
+    private XSLFSlide slide;
+
+    @Before
+    public void before() throws TemplateLoadException {
+        ppt = SlideShowTemplate.load(TemplateSource.DEFAULT).getSlideShow();
+        slide = ppt.createSlide();
+    }
+
+    @After
+    public void after() throws IOException {
+        ppt.close();
+    }
+
+    /** Builds the same text as a text box and as measurer paragraphs, and checks both give the same height. */
+    private void assertSameHeight(final double width, final Object[][]... paragraphs) {
+        assertSameHeight(width, paragraph -> {}, paragraphs);
+    }
+
+    /**
+     * Builds the same text as a text box and as measurer paragraphs, applying the same paragraph settings to each of
+     *   the text box's paragraphs, and checks both give the same height.
+     */
+    private void assertSameHeight(final double width, final Consumer<XSLFTextParagraph> format, final Object[][]... paragraphs) {
+        final XSLFTextBox textBox = slide.createTextBox();
+        textBox.setAnchor(new Rectangle2D.Double(10, 10, width, 100));
+        textBox.clearText();
+
+        final List<TextMeasurer.Paragraph> measured = new ArrayList<>();
+        TextMeasurer.ParagraphStyle style = null;
+        String fontFamily = null;
+
+        for(final Object[][] runs : paragraphs) {
+            final XSLFTextParagraph paragraph = textBox.addNewTextParagraph();
+            format.accept(paragraph);
+
+            for(final Object[] run : runs) {
+                final XSLFTextRun textRun = paragraph.addNewTextRun();
+                textRun.setText((String) run[0]);
+                textRun.setFontSize((Double) run[1]);
+                textRun.setBold((Boolean) run[2]);
+                textRun.setItalic((Boolean) run[3]);
+
+                if (run.length > 4) {
+                    textRun.setFontFamily((String) run[4]);
+                }
+
+                if (fontFamily == null) {
+                    fontFamily = textRun.getFontFamily();
+                }
+            }
+
+            if (style == null) {
+                style = TextMeasurer.ParagraphStyle.of(paragraph);
+            }
+
+            final TextMeasurer.Paragraph measuredParagraph = new TextMeasurer.Paragraph(style);
+            for(final Object[] run : runs) {
+                measuredParagraph.addRun((String) run[0], run.length > 4 ? (String) run[4] : fontFamily, (Double) run[1], (Boolean) run[2], (Boolean) run[3]);
+            }
+            measured.add(measuredParagraph);
+        }
+
+        Assert.assertEquals(textBox.getTextHeight(), TextMeasurer.getTextHeight(TextMeasurer.getTextWidth(textBox), measured), TOLERANCE);
+    }
+
+    private static Object[] run(final String text, final double size, final boolean bold, final boolean italic) {
+        return new Object[]{text, size, bold, italic};
+    }
+
+    @Test
+    public void testSingleLine() {
+        assertSameHeight(600, new Object[][]{run("Hello world", 12., false, false)});
+    }
+
+    @Test
+    public void testWrappedText() {
+        assertSameHeight(150, new Object[][]{run(LOREM, 12., false, false)});
+    }
+
+    @Test
+    public void testNarrowBoxBreaksWords() {
+        assertSameHeight(30, new Object[][]{run(LOREM, 14., true, false)});
+    }
+
+    @Test
+    public void testMixedRuns() {
+        assertSameHeight(200, new Object[][]{
+            run("Some plain text, ", 10., false, false),
+            run("some bold text, ", 16., true, false),
+            run("and some italic text which wraps.", 12., false, true)
+        });
+    }
+
+    @Test
+    public void testFontFamilies() {
+        assertSameHeight(200, new Object[][]{
+            new Object[]{"Some serif text, ", 12., false, false, "Serif"},
+            new Object[]{"some monospaced text, ", 14., true, false, "Monospaced"},
+            new Object[]{"and text in a font which isn't installed.", 10., false, true, "No Such Font"}
+        });
+    }
+
+    @Test
+    public void testNewlines() {
+        assertSameHeight(300, new Object[][]{run("First line\nSecond line\n\nFourth line", 12., false, false)});
+    }
+
+    @Test
+    public void testMultipleParagraphs() {
+        assertSameHeight(200,
+            new Object[][]{run("Title", 14., true, false)},
+            new Object[][]{run("5 months ago", 10., false, true)},
+            new Object[][]{run(LOREM, 11., false, false)}
+        );
+    }
+
+    @Test
+    public void testEmptyParagraph() {
+        assertSameHeight(200,
+            new Object[][]{run("Before", 12., false, false)},
+            new Object[][]{},
+            new Object[][]{run("After", 12., false, false)}
+        );
+    }
+
+    @Test
+    public void testLeftMargin() {
+        assertSameHeight(200, paragraph -> paragraph.setLeftMargin(40.), new Object[][]{run(LOREM, 12., false, false)});
+    }
+
+    @Test
+    public void testFirstLineIndent() {
+        assertSameHeight(200, paragraph -> {
+            paragraph.setLeftMargin(10.);
+            paragraph.setIndent(30.);
+        }, new Object[][]{run(LOREM, 12., false, false)});
+    }
+
+    @Test
+    public void testHangingIndent() {
+        assertSameHeight(200, paragraph -> {
+            paragraph.setLeftMargin(30.);
+            paragraph.setIndent(-30.);
+        }, new Object[][]{run(LOREM, 12., false, false)});
+    }
+
+    @Test
+    public void testLineSpacingPercentage() {
+        assertSameHeight(200, paragraph -> paragraph.setLineSpacing(150.),
+            new Object[][]{run("Title", 14., true, false)},
+            new Object[][]{run(LOREM, 11., false, false)}
+        );
+    }
+
+    @Test
+    public void testLineSpacingPoints() {
+        assertSameHeight(200, paragraph -> {
+            paragraph.setLineSpacing(-20.);
+            paragraph.setSpaceBefore(-6.);
+            paragraph.setSpaceAfter(50.);
+        },
+            new Object[][]{run("Title", 14., true, false)},
+            new Object[][]{run(LOREM, 11., false, false)}
+        );
+    }
+
+    /**
+     * Lays out text the same way as a list item, where the date and the summary beside a thumbnail have their own left
+     *   margins; measuring it from the text box defaults as the list layout does.
+     */
+    @Test
+    public void testListItemMargins() {
+        final double width = 250, thumbW = 60;
+
+        final XSLFTextBox textBox = slide.createTextBox();
+        textBox.setAnchor(new Rectangle2D.Double(10, 10, width, 100));
+        textBox.clearText();
+
+        final XSLFTextRun title = textBox.addNewTextParagraph().addNewTextRun();
+        title.setText("A document title which is long enough to wrap");
+        title.setFontSize(14.);
+        title.setBold(true);
+
+        final XSLFTextParagraph datePara = textBox.addNewTextParagraph();
+        datePara.setLeftMargin(5.);
+        final XSLFTextRun date = datePara.addNewTextRun();
+        date.setText("5 months ago");
+        date.setFontSize(10.);
+        date.setItalic(true);
+
+        final XSLFTextParagraph contentPara = textBox.addNewTextParagraph();
+        contentPara.setLeftMargin(thumbW);
+        final XSLFTextRun content = contentPara.addNewTextRun();
+        content.setText(LOREM);
+        content.setFontSize(11.);
+
+        final TextBoxStyle style = TextBoxStyle.of(slide);
+
+        final TextMeasurer.Paragraph measuredTitle = new TextMeasurer.Paragraph(style.getParagraphStyle());
+        measuredTitle.addRun(title.getRawText(), style.getFontFamily(), 14., true, false);
+        final TextMeasurer.Paragraph measuredDate = new TextMeasurer.Paragraph(style.getParagraphStyle().withLeftMargin(5.));
+        measuredDate.addRun(date.getRawText(), style.getFontFamily(), 10., false, true);
+        final TextMeasurer.Paragraph measuredContent = new TextMeasurer.Paragraph(style.getParagraphStyle().withLeftMargin(thumbW));
+        measuredContent.addRun(LOREM, style.getFontFamily(), 11., false, false);
+
+        final List<TextMeasurer.Paragraph> measured = new ArrayList<>();
+        measured.add(measuredTitle);
+        measured.add(measuredDate);
+        measured.add(measuredContent);
+
+        Assert.assertEquals(textBox.getTextHeight(), TextMeasurer.getTextHeight(style.getTextWidth(width), measured), TOLERANCE);
+    }
+}
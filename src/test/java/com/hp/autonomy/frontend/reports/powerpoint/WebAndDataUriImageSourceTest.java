@@ -0,0 +1,172 @@
+/*
+ * Copyright 2017-2018 Open Text.
+ *
+ * Licensed under the MIT License (the "License"); you may not use this file
+ * except in compliance with the License.
+ *
+ * The only warranties for products and services of Open Text and its affiliates
+ * and licensors ("Open Text") are as may be set forth in the express warranty
+ * statements accompanying such products and services. Nothing herein should be
+ * construed as constituting an additional warranty. Open Text shall not be
+ * liable for technical or editorial errors or omissions contained herein. The
+ * information contained herein is subject to change without notice.
+ */
+
+package com.hp.autonomy.frontend.reports.powerpoint;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.poi.sl.usermodel.PictureData;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WebAndDataUriImageSourceTest {
+
+    private static final byte[] PNG = Base64.decodeBase64("iVBORw0KGgoAAAANSUhEUgAAAA8AAAAFCAIAAAAVLyF7AAAAPUlEQVQI14WNSQoAMAgDo/b/Lxamh9JiF+gcZJJDlCbA1z0zawXcvq5HhApmVr1GSa6d55NFO/IYA47VQQfmMSztMBTTBAAAAABJRU5ErkJggg==");
+
+    private HttpServer server;
+    private String baseUrl;
+
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+
+    @Before
+    public void before() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+
+        server.createContext("/image.png", exchange -> respond(exchange, "image/png", PNG, true));
+        server.createContext("/charset.png", exchange -> respond(exchange, "image/png; charset=binary", PNG, true));
+        server.createContext("/chunked.png", exchange -> respond(exchange, "image/png", PNG, false));
+        server.createContext("/large.png", exchange -> respond(exchange, "image/png", new byte[4096], true));
+        server.createContext("/large-chunked.png", exchange -> respond(exchange, "image/png", new byte[4096], false));
+        server.createContext("/page.png", exchange -> respond(exchange, "text/html", PNG, true));
+        server.createContext("/missing.png", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.createContext("/slow.png", exchange -> {
+            final int current = concurrent.incrementAndGet();
+            maxConcurrent.accumulateAndGet(current, Math::max);
+
+            try {
+                Thread.sleep(500);
+            }
+            catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            concurrent.decrementAndGet();
+            respond(exchange, "image/png", PNG, true);
+        });
+
+        server.start();
+        baseUrl = "http://" + server.getAddress().getHostString() + ':' + server.getAddress().getPort();
+    }
+
+    @After
+    public void after() {
+        server.stop(0);
+    }
+
+    private static void respond(final HttpExchange exchange, final String contentType, final byte[] body, final boolean sendLength) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, sendLength ? body.length : 0);
+
+        try(OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    private WebAndDataUriImageSource createSource(final Duration timeout, final int maxConcurrentPerHost) {
+        return new WebAndDataUriImageSource(Duration.ofSeconds(5), timeout, 1024, maxConcurrentPerHost);
+    }
+
+    @Test
+    public void testFetch() {
+        final ImageData imageData = createSource(Duration.ofSeconds(5), 4).getImageData(baseUrl + "/image.png");
+
+        Assert.assertEquals(PictureData.PictureType.PNG, imageData.getType());
+        Assert.assertArrayEquals(PNG, imageData.getData());
+    }
+
+    @Test
+    public void testFetchWithContentTypeParameters() {
+        Assert.assertArrayEquals(PNG, createSource(Duration.ofSeconds(5), 4).getImageData(baseUrl + "/charset.png").getData());
+    }
+
+    @Test
+    public void testFetchWithoutContentLength() {
+        Assert.assertArrayEquals(PNG, createSource(Duration.ofSeconds(5), 4).getImageData(baseUrl + "/chunked.png").getData());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testImageTooLarge() {
+        createSource(Duration.ofSeconds(5), 4).getImageData(baseUrl + "/large.png");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testImageTooLargeWithoutContentLength() {
+        createSource(Duration.ofSeconds(5), 4).getImageData(baseUrl + "/large-chunked.png");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedContentType() {
+        createSource(Duration.ofSeconds(5), 4).getImageData(baseUrl + "/page.png");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingImage() {
+        createSource(Duration.ofSeconds(5), 4).getImageData(baseUrl + "/missing.png");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTimeout() {
+        createSource(Duration.ofMillis(100), 4).getImageData(baseUrl + "/slow.png");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDisallowedPath() {
+        createSource(Duration.ofSeconds(5), 4).getImageData(baseUrl + "/image.html");
+    }
+
+    @Test
+    public void testPerHostConcurrencyLimit() throws InterruptedException {
+        final WebAndDataUriImageSource source = createSource(Duration.ofSeconds(10), 1);
+
+        final Thread[] threads = new Thread[3];
+        final AtomicInteger successes = new AtomicInteger();
+
+        for(int ii = 0; ii < threads.length; ++ii) {
+            threads[ii] = new Thread(() -> {
+                source.getImageData(baseUrl + "/slow.png");
+                successes.incrementAndGet();
+            });
+            threads[ii].start();
+        }
+
+        for(final Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(3, successes.get());
+        Assert.assertEquals(1, maxConcurrent.get());
+    }
+
+    @Test
+    public void testDataUri() {
+        final ImageData imageData = createSource(Duration.ofSeconds(5), 4).getImageData("data:image/png;base64," + Base64.encodeBase64String(PNG));
+
+        Assert.assertArrayEquals(PNG, imageData.getData());
+    }
+}